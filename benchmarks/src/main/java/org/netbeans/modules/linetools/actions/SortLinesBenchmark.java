@@ -0,0 +1,235 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.actions;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JEditorPane;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.JTextComponent;
+import org.netbeans.editor.BaseDocument;
+import org.netbeans.modules.csl.api.OffsetRange;
+import org.netbeans.modules.linetools.bench.Corpus;
+import org.netbeans.modules.linetools.engine.LineSorter;
+import org.netbeans.modules.linetools.engine.SortOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sorting the selected lines of a {@link BaseDocument} the way the sort
+ * actions do, as a whole and phase by phase: extracting the lines, removing
+ * the duplicates, sorting, removing the old lines and inserting the sorted
+ * ones. Run with <code>-prof gc</code> for the allocation rate; a single
+ * shot also counts what its setup allocates, the new document for example,
+ * so compare the benchmarks with each other rather than in absolute terms.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g", "-Djava.awt.headless=true", "--add-opens=java.base/java.net=ALL-UNNAMED"})
+public class SortLinesBenchmark {
+
+    /**
+     * The text to sort and what the phases need of it, built once per trial.
+     */
+    @State(Scope.Benchmark)
+    public static class Input {
+
+        @Param({"10000", "100000", "1000000"})
+        public int lines;
+
+        // the share of lines that repeat an earlier line, a third of them
+        // in upper case
+        @Param({"0.0", "0.5", "0.9"})
+        public double duplicateRatio;
+
+        @Param({"false", "true"})
+        public boolean removeDuplicates;
+
+        @Param({"false", "true"})
+        public boolean matchCase;
+
+        String text;
+        SortOptions options;
+        String[] extractedLines;
+        String[] uniqueLines;
+        String sortedText;
+
+        @Setup(Level.Trial)
+        public void setUp() throws BadLocationException {
+            text = generateText(lines, duplicateRatio);
+            options = new SortOptions(false, matchCase, removeDuplicates);
+            Editor editor = new Editor();
+            editor.setUp(this);
+            extractedLines = SortLinesBenchmark.extract(editor);
+            uniqueLines = removeDuplicates ? LineSorter.removeDuplicates(extractedLines, matchCase) : extractedLines;
+            SortOptions sortOnly = new SortOptions(false, matchCase, false);
+            sortedText = LineOperations.SortLinesTask.joinLines(
+                    LineSorter.permutation(uniqueLines, sortOnly).apply(uniqueLines));
+        }
+
+        private static String generateText(int lines, double duplicateRatio) {
+            int unique = Math.max(1, (int) Math.round(lines * (1 - duplicateRatio)));
+            String[] pool = Corpus.LOG_LINES.generate(42, unique);
+            Random random = new Random(42);
+            String[] text = new String[lines];
+            for (int i = 0; i < lines; i++) {
+                if (i < unique) {
+                    text[i] = pool[i];
+                } else {
+                    String duplicate = pool[random.nextInt(unique)];
+                    text[i] = random.nextInt(3) == 0 ? duplicate.toUpperCase() : duplicate;
+                }
+            }
+            // spread the duplicates over the text
+            for (int i = lines - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                String swap = text[i];
+                text[i] = text[j];
+                text[j] = swap;
+            }
+            StringBuilder sb = new StringBuilder();
+            for (String line : text) {
+                sb.append(line).append('\n');
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * A new editor with all of the text selected, for each invocation.
+     */
+    @State(Scope.Thread)
+    public static class Editor {
+
+        JTextComponent textComponent;
+        BaseDocument document;
+        OffsetRange lineRange;
+
+        @Setup(Level.Invocation)
+        public void setUp(Input input) throws BadLocationException {
+            textComponent = new JEditorPane();
+            document = new BaseDocument(false, "text/plain"); // NOI18N
+            textComponent.setDocument(document);
+            document.insertString(0, input.text, null);
+            LineOperationOptions.setDocumentOptions(document, LineOperations.getOptions()
+                    .withMatchCase(input.matchCase).withRemoveDuplicateLines(input.removeDuplicates));
+            textComponent.setSelectionStart(0);
+            textComponent.setSelectionEnd(document.getLength());
+            textComponent.getCaret().setSelectionVisible(true);
+            List<OffsetRange> lineRanges = Carets.getLineRanges(document, Carets.getRegions(textComponent), true);
+            lineRange = lineRanges.get(0);
+        }
+    }
+
+    /**
+     * A new editor whose selected lines were removed, for each invocation.
+     */
+    @State(Scope.Thread)
+    public static class RemovedEditor {
+
+        BaseDocument document;
+        OffsetRange removalRange;
+
+        @Setup(Level.Invocation)
+        public void setUp(Input input) throws BadLocationException {
+            Editor editor = new Editor();
+            editor.setUp(input);
+            document = editor.document;
+            removalRange = LineOperations.SortLinesTask.getRemovalLineRange(document, editor.lineRange);
+            document.remove(removalRange.getStart(), removalRange.getLength());
+        }
+    }
+
+    @Benchmark
+    public BaseDocument sortAscending(Editor editor) {
+        LineOperations.sortLinesAscending(editor.textComponent);
+        return editor.document;
+    }
+
+    @Benchmark
+    public BaseDocument sortDescending(Editor editor) {
+        LineOperations.sortLinesDescending(editor.textComponent);
+        return editor.document;
+    }
+
+    @Benchmark
+    public String[] phase1Extract(Editor editor) throws BadLocationException {
+        return extract(editor);
+    }
+
+    @Benchmark
+    public String[] phase2Dedupe(Input input) {
+        return input.removeDuplicates ? LineSorter.removeDuplicates(input.extractedLines, input.matchCase) : input.extractedLines;
+    }
+
+    @Benchmark
+    public String phase3Sort(Input input) {
+        SortOptions sortOnly = new SortOptions(false, input.matchCase, false);
+        return LineOperations.SortLinesTask.joinLines(
+                LineSorter.permutation(input.uniqueLines, sortOnly).apply(input.uniqueLines));
+    }
+
+    @Benchmark
+    public BaseDocument phase4Remove(Editor editor) throws BadLocationException {
+        OffsetRange removalRange = LineOperations.SortLinesTask.getRemovalLineRange(editor.document, editor.lineRange);
+        editor.document.remove(removalRange.getStart(), removalRange.getLength());
+        return editor.document;
+    }
+
+    @Benchmark
+    public BaseDocument phase5Insert(Input input, RemovedEditor editor) throws BadLocationException {
+        editor.document.insertString(editor.removalRange.getStart(), input.sortedText, null);
+        return editor.document;
+    }
+
+    static String[] extract(Editor editor) throws BadLocationException {
+        return LineOperations.SortLinesTask.getLines(editor.document, editor.lineRange);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.bench;
+
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.modules.linetools.engine.CustomComparator;
+import org.netbeans.modules.linetools.engine.CustomNaturalOrderComparator;
+import org.netbeans.modules.linetools.engine.NaturalOrderComparator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The cost of a single compare of each comparator the line tools sort with.
+ * Run with <code>-prof gc</code> for the bytes allocated per compare
+ * (<code>gc.alloc.rate.norm</code>).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ComparatorBenchmark {
+
+    // a power of two, the pairs are picked with a mask
+    private static final int LINES = 4096;
+
+    public enum Comparators {
+
+        /**
+         * {@link String#compareTo(String)}, the baseline.
+         */
+        STRING {
+            @Override
+            Comparator<String> create() {
+                return Comparator.naturalOrder();
+            }
+        },
+        CUSTOM {
+            @Override
+            Comparator<String> create() {
+                return new CustomComparator(Locale.ENGLISH);
+            }
+        },
+        CUSTOM_IGNORE_CASE {
+            @Override
+            Comparator<String> create() {
+                return new CustomComparator(Locale.ENGLISH, false);
+            }
+        },
+        NATURAL {
+            @Override
+            @SuppressWarnings("unchecked")
+            Comparator<String> create() {
+                return new NaturalOrderComparator();
+            }
+        },
+        CUSTOM_NATURAL {
+            @Override
+            Comparator<String> create() {
+                return new CustomNaturalOrderComparator();
+            }
+        },
+        CUSTOM_NATURAL_IGNORE_CASE {
+            @Override
+            Comparator<String> create() {
+                return new CustomNaturalOrderComparator(false);
+            }
+        };
+
+        abstract Comparator<String> create();
+    }
+
+    @Param
+    public Corpus corpus;
+
+    @Param
+    public Comparators comparator;
+
+    private String[] lines;
+    private Comparator<String> instance;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        lines = corpus.generate(42, LINES);
+        instance = comparator.create();
+    }
+
+    @Benchmark
+    public int compare() {
+        int i = index;
+        index = (i + 1) & (LINES - 1);
+        return instance.compare(lines[i], lines[index]);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.bench;
+
+import java.util.Random;
+
+/**
+ * Realistic lines for the benchmarks, generated from a seed so that every
+ * run sorts the same text.
+ */
+public enum Corpus {
+
+    LOG_LINES {
+        @Override
+        String line(Random random) {
+            return String.format("2024-%02d-%02d %02d:%02d:%02d,%03d %-5s [worker-%d] o.n.m.linetools.%s - %s %d items in %d ms", // NOI18N
+                    1 + random.nextInt(12), 1 + random.nextInt(28), random.nextInt(24), random.nextInt(60),
+                    random.nextInt(60), random.nextInt(1000), pick(random, LEVELS), random.nextInt(16),
+                    pick(random, CLASSES), pick(random, VERBS), random.nextInt(100000), random.nextInt(5000));
+        }
+    },
+    FILE_PATHS {
+        @Override
+        String line(Random random) {
+            StringBuilder sb = new StringBuilder("/home/").append(pick(random, USERS)).append("/projects"); // NOI18N
+            int depth = 2 + random.nextInt(6);
+            for (int i = 0; i < depth; i++) {
+                sb.append('/').append(pick(random, DIRECTORIES));
+                if (random.nextInt(3) == 0) {
+                    sb.append(random.nextInt(20));
+                }
+            }
+            return sb.append('/').append(pick(random, CLASSES)).append(random.nextInt(50))
+                    .append(pick(random, EXTENSIONS)).toString();
+        }
+    },
+    VERSIONS {
+        @Override
+        String line(Random random) {
+            StringBuilder sb = new StringBuilder().append(random.nextInt(20)).append('.').append(random.nextInt(40));
+            if (random.nextBoolean()) {
+                sb.append('.').append(random.nextInt(200));
+            }
+            switch (random.nextInt(4)) {
+                case 0:
+                    sb.append("-beta.").append(random.nextInt(10)); // NOI18N
+                    break;
+                case 1:
+                    sb.append("+").append(random.nextInt(30)); // NOI18N
+                    break;
+                default:
+                    break;
+            }
+            return sb.toString();
+        }
+    },
+    IDENTIFIERS {
+        @Override
+        String line(Random random) {
+            StringBuilder sb = new StringBuilder();
+            int words = 1 + random.nextInt(4);
+            boolean constant = random.nextInt(4) == 0;
+            for (int i = 0; i < words; i++) {
+                String word = pick(random, WORDS);
+                if (constant) {
+                    sb.append(i == 0 ? "" : "_").append(word.toUpperCase()); // NOI18N
+                } else if (i == 0) {
+                    sb.append(word);
+                } else {
+                    sb.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+                }
+            }
+            if (random.nextInt(3) == 0) {
+                sb.append(random.nextInt(10));
+            }
+            return sb.toString();
+        }
+    },
+    NON_ASCII {
+        @Override
+        String line(Random random) {
+            return pick(random, SURNAMES) + ", " + pick(random, FIRST_NAMES); // NOI18N
+        }
+    };
+
+    private static final String[] LEVELS = {"DEBUG", "INFO", "WARN", "ERROR"}; // NOI18N
+    private static final String[] CLASSES = {"LineOperations", "FilterProcess", "ExternalSorter", "CharSideBar", // NOI18N
+        "TokenCycleTable", "BatchRunner", "SortFile", "Carets"}; // NOI18N
+    private static final String[] VERBS = {"Processed", "Sorted", "Filtered", "Skipped", "Merged"}; // NOI18N
+    private static final String[] USERS = {"alice", "bob", "carol", "dave"}; // NOI18N
+    private static final String[] DIRECTORIES = {"src", "main", "java", "org", "netbeans", "modules", "test", // NOI18N
+        "resources", "module", "pkg", "util", "impl"}; // NOI18N
+    private static final String[] EXTENSIONS = {".java", ".properties", ".xml", ".txt", ".html"}; // NOI18N
+    private static final String[] WORDS = {"get", "set", "user", "name", "http", "client", "timeout", "xml", // NOI18N
+        "request", "line", "sort", "max", "value", "is", "enabled", "buffer"}; // NOI18N
+    private static final String[] SURNAMES = {"Černá", "Müller", "Åsheim", "Núñez", "Özdemir", "Dvořák", // NOI18N
+        "Łukasiewicz", "Schüßler", "Ëmond", "Smith", "Zoë", "Ørsted", "Ångström", "Ibáñez", "Straße"}; // NOI18N
+    private static final String[] FIRST_NAMES = {"Žofie", "Jürgen", "Øystein", "Renée", "José", "Søren", // NOI18N
+        "Ærin", "Chloé", "Zoë", "Iñigo", "Anna", "Émile"}; // NOI18N
+
+    abstract String line(Random random);
+
+    /**
+     * The lines, the same for the same seed.
+     */
+    public String[] generate(long seed, int count) {
+        Random random = new Random(seed);
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = line(random);
+        }
+        return lines;
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.bench;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.modules.linetools.engine.FilterProcess;
+import org.netbeans.modules.linetools.engine.FilterStatistics;
+
+/**
+ * Pipes generated log lines through external commands, once with
+ * {@link FilterProcess} and once with plain {@link ProcessBuilder} piping,
+ * and prints the throughput, the spawn overhead, the peak heap and the peak
+ * number of threads of each run. The stand-in commands are <code>cat</code>,
+ * <code>sort</code> and {@link Echo}.
+ * <pre>
+ * java -Xmx8g -cp target/benchmarks.jar org.netbeans.modules.linetools.bench.FilterThroughput [MB...]
+ * </pre>
+ * The sizes default to 1, 16, 256 and 1024 MB. The peak heap is the sum of
+ * the peaks of the heap pools, an upper bound of the real peak.
+ */
+public final class FilterThroughput {
+
+    private static final long MB = 1024 * 1024;
+    // a power of two, the lines are picked with a mask
+    private static final int POOL_LINES = 4096;
+
+    private final byte[][] pool;
+    private final String[] poolLines;
+
+    private FilterThroughput() {
+        poolLines = Corpus.LOG_LINES.generate(42, POOL_LINES);
+        pool = new byte[POOL_LINES][];
+        for (int i = 0; i < POOL_LINES; i++) {
+            pool[i] = (poolLines[i] + '\n').getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        long[] sizes = {1, 16, 256, 1024};
+        if (args.length > 0) {
+            sizes = new long[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Long.parseLong(args[i]);
+            }
+        }
+        List<String[]> commands = new ArrayList<>();
+        commands.add(new String[]{"cat"}); // NOI18N
+        commands.add(new String[]{"sort"}); // NOI18N
+        commands.add(new String[]{System.getProperty("java.home") + File.separator + "bin" + File.separator + "java", // NOI18N
+            "-cp", System.getProperty("java.class.path"), Echo.class.getName()}); // NOI18N
+
+        FilterThroughput harness = new FilterThroughput();
+        System.out.println(String.format(Locale.ROOT, "%-8s %8s %-14s %10s %10s %12s %12s %8s", // NOI18N
+                "command", "MB", "path", "MB/s", "spawn ms", "1st out ms", "peak heap MB", "threads")); // NOI18N
+        for (long size : sizes) {
+            for (String[] command : commands) {
+                String name = command.length == 1 ? command[0] : "echo"; // NOI18N
+                harness.measure(name, size, new ProcessBuilderRun(harness, command, size * MB));
+                harness.measure(name, size, new FilterProcessRun(harness, command, size * MB));
+            }
+        }
+    }
+
+    private void measure(String command, long size, Run run) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+        System.gc();
+        for (MemoryPoolMXBean pool : heapPools) {
+            pool.resetPeakUsage();
+        }
+        threads.resetPeakThreadCount();
+
+        long start = System.nanoTime();
+        run.run();
+        long elapsed = System.nanoTime() - start;
+
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+        System.out.println(String.format(Locale.ROOT, "%-8s %8d %-14s %10.1f %10.2f %12s %12d %8d", // NOI18N
+                command, size, run.getName(), run.bytesWritten / (double) MB / (elapsed / 1e9),
+                run.spawnNanos / 1e6, run.firstOutputNanos < 0 ? "-" : String.format(Locale.ROOT, "%.2f", run.firstOutputNanos / 1e6), // NOI18N
+                peakHeap / MB, threads.getPeakThreadCount()));
+    }
+
+    private abstract static class Run {
+
+        final FilterThroughput harness;
+        final String[] command;
+        final long bytes;
+        long bytesWritten;
+        long spawnNanos;
+        long firstOutputNanos = -1;
+
+        Run(FilterThroughput harness, String[] command, long bytes) {
+            this.harness = harness;
+            this.command = command;
+            this.bytes = bytes;
+        }
+
+        abstract String getName();
+
+        abstract void run() throws Exception;
+    }
+
+    /**
+     * Writes the lines to the process on a thread of its own and counts the
+     * bytes of the output without keeping them.
+     */
+    private static final class ProcessBuilderRun extends Run {
+
+        ProcessBuilderRun(FilterThroughput harness, String[] command, long bytes) {
+            super(harness, command, bytes);
+        }
+
+        @Override
+        String getName() {
+            return "ProcessBuilder"; // NOI18N
+        }
+
+        @Override
+        void run() throws Exception {
+            long spawnStart = System.nanoTime();
+            final Process process = new ProcessBuilder(command)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            spawnNanos = System.nanoTime() - spawnStart;
+            final IOException[] failure = new IOException[1];
+            Thread writer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try (OutputStream out = new BufferedOutputStream(process.getOutputStream(), 64 * 1024)) {
+                        long written = 0;
+                        for (int i = 0; written < bytes; i++) {
+                            byte[] line = harness.pool[i & (POOL_LINES - 1)];
+                            out.write(line);
+                            written += line.length;
+                        }
+                        bytesWritten = written;
+                    } catch (IOException ex) {
+                        failure[0] = ex;
+                    }
+                }
+            }, "ProcessBuilder STDIN writer"); // NOI18N
+            writer.start();
+            byte[] buffer = new byte[64 * 1024];
+            long read = 0;
+            try (InputStream in = process.getInputStream()) {
+                int count;
+                while ((count = in.read(buffer)) != -1) {
+                    if (read == 0 && count > 0) {
+                        firstOutputNanos = System.nanoTime() - spawnStart;
+                    }
+                    read += count;
+                }
+            }
+            writer.join();
+            process.waitFor(1, TimeUnit.MINUTES);
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+        }
+    }
+
+    /**
+     * The way the filter actions run a filter: lines printed to the
+     * process, the output collected as lines.
+     */
+    private static final class FilterProcessRun extends Run {
+
+        FilterProcessRun(FilterThroughput harness, String[] command, long bytes) {
+            super(harness, command, bytes);
+        }
+
+        @Override
+        String getName() {
+            return "FilterProcess"; // NOI18N
+        }
+
+        @Override
+        void run() throws Exception {
+            FilterProcess process = new FilterProcess(command);
+            try (PrintWriter writer = process.exec()) {
+                long written = 0;
+                for (int i = 0; written < bytes; i++) {
+                    String line = harness.poolLines[i & (POOL_LINES - 1)];
+                    writer.println(line);
+                    written += line.length() + 1;
+                }
+            }
+            process.waitFor();
+            String[] output = process.getStdOutOutput();
+            FilterStatistics statistics = process.getStatistics();
+            bytesWritten = statistics.getBytesWritten();
+            spawnNanos = statistics.getSpawnNanos();
+            firstOutputNanos = statistics.getFirstOutputNanos();
+            if (output == null || output.length != statistics.getLinesRead()) {
+                throw new IllegalStateException("Output lost"); // NOI18N
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.actions;
+
+import java.awt.GridLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.List;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import org.openide.DialogDescriptor;
+import org.openide.DialogDisplayer;
+import org.openide.awt.ActionID;
+import org.openide.awt.ActionReference;
+import org.openide.awt.ActionReferences;
+import org.openide.awt.ActionRegistration;
+import org.openide.filesystems.FileObject;
+import org.openide.loaders.DataObject;
+import org.openide.util.NbBundle;
+
+/**
+ * Applies a line operation to the selected files and to the text files in
+ * the selected folders, see {@link BatchRunner}.
+ */
+@ActionID(
+        category = "Editor",
+        id = "org.netbeans.modules.linetools.actions.BatchLineOperation"
+)
+@ActionRegistration(
+        displayName = "#CTL_BatchLineOperation"
+)
+@ActionReferences({
+    @ActionReference(path = "Loaders/folder/any/Actions", position = 1350),
+    @ActionReference(path = "Loaders/text/plain/Actions", position = 1360),
+    @ActionReference(path = "Loaders/content/unknown/Actions", position = 1360)
+})
+public final class BatchLineOperation implements ActionListener {
+
+    private static final String[] OPERATIONS = {
+        "CTL_SortLinesAscending", // NOI18N
+        "CTL_SortLinesDescending", // NOI18N
+        "CTL_CycleSlashBackslashDotDashAction", // NOI18N
+        "CTL_CycleTokensAction", // NOI18N
+        "CTL_Filter" // NOI18N
+    };
+
+    private final List<DataObject> context;
+
+    public BatchLineOperation(List<DataObject> context) {
+        this.context = context;
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent ev) {
+        String[] names = new String[OPERATIONS.length];
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            names[i] = NbBundle.getMessage(BatchLineOperation.class, OPERATIONS[i]);
+        }
+        JComboBox<String> operation = new JComboBox<>(names);
+        JCheckBox matchCase = new JCheckBox(NbBundle.getMessage(BatchLineOperation.class, "CTL_MatchCase"), // NOI18N
+                LineOperations.isMatchCase());
+        JCheckBox removeDuplicates = new JCheckBox(NbBundle.getMessage(BatchLineOperation.class, "CTL_RemoveDuplicateLines"), // NOI18N
+                LineOperations.isRemoveDuplicateLines());
+        JTextField filterCommand = new JTextField(30);
+        JPanel panel = new JPanel(new GridLayout(0, 1));
+        panel.add(operation);
+        panel.add(matchCase);
+        panel.add(removeDuplicates);
+        panel.add(new JLabel(NbBundle.getMessage(BatchLineOperation.class, "CTL_FilterCommand"))); // NOI18N
+        panel.add(filterCommand);
+        DialogDescriptor descriptor = new DialogDescriptor(panel,
+                NbBundle.getMessage(BatchLineOperation.class, "TITLE_BatchLineOperation")); // NOI18N
+        if (DialogDisplayer.getDefault().notify(descriptor) != DialogDescriptor.OK_OPTION) {
+            return;
+        }
+
+        BatchRunner.Operation batchOperation;
+        switch (operation.getSelectedIndex()) {
+            case 0:
+                batchOperation = BatchRunner.sort(false, matchCase.isSelected(), removeDuplicates.isSelected());
+                break;
+            case 1:
+                batchOperation = BatchRunner.sort(true, matchCase.isSelected(), removeDuplicates.isSelected());
+                break;
+            case 2:
+                batchOperation = BatchRunner.cycle(LineOperations.FILE_SEPARATORS_DOT_DASH);
+                break;
+            case 3:
+                batchOperation = BatchRunner.cycleTokens(LineOperations.getTokenCycleTable());
+                break;
+            default:
+                String command = filterCommand.getText().trim();
+                if (command.length() == 0) {
+                    LineOperations.beep();
+                    return;
+                }
+                batchOperation = BatchRunner.filter(command.split(" ")); // NOI18N
+                break;
+        }
+        List<FileObject> files = BatchRunner.collectFiles(context);
+        if (files.isEmpty()) {
+            LineOperations.beep();
+            return;
+        }
+        BatchRunner.run((String) operation.getSelectedItem(), files, batchOperation);
+    }
+}
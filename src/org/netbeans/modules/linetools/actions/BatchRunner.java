@@ -0,0 +1,425 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.actions;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.api.queries.FileEncodingQuery;
+import org.netbeans.modules.linetools.engine.CycleTable;
+import org.netbeans.modules.linetools.engine.ExternalSorter;
+import org.netbeans.modules.linetools.engine.FileSorter;
+import org.netbeans.modules.linetools.engine.FilterProcess;
+import org.netbeans.modules.linetools.engine.SortOptions;
+import org.netbeans.modules.linetools.engine.TokenCycleTable;
+import org.openide.ErrorManager;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.loaders.DataObject;
+import org.openide.util.NbBundle;
+import org.openide.util.RequestProcessor;
+import org.openide.windows.IOProvider;
+import org.openide.windows.InputOutput;
+
+/**
+ * Applies a line operation to many files on disk in parallel. The files are
+ * processed on a pool with one thread per core, each file is streamed from
+ * disk to a temporary file that replaces it only if its content changed.
+ */
+final class BatchRunner {
+
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+    private static final RequestProcessor RP = new RequestProcessor(BatchRunner.class.getName(), THREADS, true);
+    // waits for the files, not on RP which it would block
+    private static final RequestProcessor COORDINATOR = new RequestProcessor(BatchRunner.class.getName() + ".coordinator"); // NOI18N
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private BatchRunner() {
+    }
+
+    /**
+     * An operation on one file.
+     */
+    abstract static class Operation {
+
+        /**
+         * @return whether the file changed
+         */
+        abstract boolean apply(File file, Charset charset) throws IOException;
+    }
+
+    /**
+     * Transforms one line, without its line terminator.
+     */
+    abstract static class LineTransform {
+
+        abstract String apply(String line);
+    }
+
+    static Operation sort(final boolean descending, final boolean matchCase, final boolean removeDuplicates) {
+        return new Operation() {
+            @Override
+            boolean apply(File file, Charset charset) throws IOException {
+                // a run per thread has to fit into the heap of one run
+                return FileSorter.sort(file, charset, new SortOptions(descending, matchCase, removeDuplicates),
+                        ExternalSorter.getRunBytes() / THREADS);
+            }
+        };
+    }
+
+    static Operation cycle(final String cycleChars) {
+        final CycleTable cycleTable = CycleTable.get(cycleChars);
+        return lines(new LineTransform() {
+            @Override
+            String apply(String line) {
+                return cycleTable.cycle(line);
+            }
+        });
+    }
+
+    static Operation cycleTokens(final TokenCycleTable table) {
+        return lines(new LineTransform() {
+            @Override
+            String apply(String line) {
+                return table.cycle(line);
+            }
+        });
+    }
+
+    /**
+     * Filters all lines of a file through the command. The lines are streamed
+     * from disk to the STDIN of the filter, only its output is held in memory.
+     */
+    static Operation filter(final String[] command) {
+        return new Operation() {
+            @Override
+            boolean apply(File file, Charset charset) throws IOException {
+                LineTerminators terminators = new LineTerminators();
+                FilterProcess filterProcess = new FilterProcess(command);
+                String[] output;
+                try {
+                    try (final PrintWriter in = filterProcess.exec()) {
+                        readLines(file, charset, new LineTransform() {
+                            @Override
+                            String apply(String line) {
+                                in.println(line);
+                                return line;
+                            }
+                        }, null, terminators);
+                    }
+                    if (filterProcess.waitFor() != 0) {
+                        return false;
+                    }
+                    output = filterProcess.getStdOutOutput();
+                } finally {
+                    filterProcess.destroy();
+                    filterProcess.getStatistics().commit(String.join(" ", command)); // NOI18N
+                }
+                File filtered = File.createTempFile(".filter-" + file.getName(), ".tmp", file.getParentFile()); // NOI18N
+                try {
+                    boolean changed;
+                    try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filtered), charset),
+                            BUFFER_SIZE)) {
+                        if (output.length == terminators.count) {
+                            // a line for each input line, compared with it on
+                            // a second pass over the file
+                            final String[] lines = output;
+                            changed = readLines(file, charset, new LineTransform() {
+                                private int i;
+
+                                @Override
+                                String apply(String line) {
+                                    return lines[i++];
+                                }
+                            }, writer);
+                        } else {
+                            // the filter changed the number of lines: a line
+                            // gets the terminator of the input line at its
+                            // index, or of the last terminated input line, and
+                            // the last line is terminated only if the input's
+                            // was
+                            changed = true;
+                            String terminator = "\n"; // NOI18N
+                            for (int i = 0; i < output.length; i++) {
+                                if (i < terminators.count && terminators.isTerminated(i)) {
+                                    terminator = terminators.get(i);
+                                }
+                                writer.write(output[i]);
+                                if (i < output.length - 1 || terminators.count == 0 || terminators.lastTerminated) {
+                                    writer.write(terminator);
+                                }
+                            }
+                        }
+                    }
+                    if (changed) {
+                        FileSorter.replace(filtered, file);
+                    }
+                    return changed;
+                } finally {
+                    if (filtered.exists() && !filtered.delete()) {
+                        filtered.deleteOnExit();
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * The line terminators of the lines of a file, a bit per line.
+     */
+    private static final class LineTerminators {
+
+        private final BitSet crlf = new BitSet();
+        int count;
+        boolean lastTerminated;
+
+        void add(String terminator) {
+            crlf.set(count++, terminator.length() == 2);
+            lastTerminated = !terminator.isEmpty();
+        }
+
+        boolean isTerminated(int line) {
+            return line < count - 1 || lastTerminated;
+        }
+
+        String get(int line) {
+            return !isTerminated(line) ? "" : crlf.get(line) ? "\r\n" : "\n"; // NOI18N
+        }
+    }
+
+    /**
+     * An operation that transforms each line separately.
+     */
+    static Operation lines(final LineTransform transform) {
+        return new Operation() {
+            @Override
+            boolean apply(File file, Charset charset) throws IOException {
+                File transformed = File.createTempFile(".lines-" + file.getName(), ".tmp", file.getParentFile()); // NOI18N
+                try {
+                    boolean changed;
+                    try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(transformed), charset),
+                            BUFFER_SIZE)) {
+                        changed = readLines(file, charset, transform, writer);
+                    }
+                    if (changed) {
+                        FileSorter.replace(transformed, file);
+                    }
+                    return changed;
+                } finally {
+                    if (transformed.exists() && !transformed.delete()) {
+                        transformed.deleteOnExit();
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Stream the lines of the file through the transform.
+     *
+     * @param writer receives the transformed lines with their original line
+     * terminators, may be null
+     * @return whether the transform changed any line
+     */
+    static boolean readLines(File file, Charset charset, LineTransform transform, Writer writer) throws IOException {
+        return readLines(file, charset, transform, writer, null);
+    }
+
+    /**
+     * @param terminators receives the line terminator of each line, may be
+     * null
+     */
+    private static boolean readLines(File file, Charset charset, LineTransform transform, Writer writer,
+            LineTerminators terminators) throws IOException {
+        boolean changed = false;
+        char[] buffer = new char[BUFFER_SIZE];
+        StringBuilder line = new StringBuilder();
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), charset)) {
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                int start = 0;
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        line.append(buffer, start, i - start);
+                        changed |= writeLine(line, transform, writer, true, terminators);
+                        start = i + 1;
+                    }
+                }
+                line.append(buffer, start, read - start);
+            }
+        }
+        if (line.length() > 0) {
+            changed |= writeLine(line, transform, writer, false, terminators);
+        }
+        return changed;
+    }
+
+    private static boolean writeLine(StringBuilder line, LineTransform transform, Writer writer, boolean terminated,
+            LineTerminators terminators) throws IOException {
+        int end = line.length();
+        boolean crlf = terminated && end > 0 && line.charAt(end - 1) == '\r';
+        String terminator = terminated ? (crlf ? "\r\n" : "\n") : ""; // NOI18N
+        String text = line.substring(0, crlf ? end - 1 : end);
+        line.setLength(0);
+        String result = transform.apply(text);
+        if (writer != null) {
+            writer.write(result);
+            writer.write(terminator);
+        }
+        if (terminators != null) {
+            terminators.add(terminator);
+        }
+        return !result.equals(text);
+    }
+
+    /**
+     * The text files of the data objects, the files in folders recursively.
+     */
+    static List<FileObject> collectFiles(List<DataObject> dataObjects) {
+        Set<FileObject> files = new LinkedHashSet<>();
+        for (DataObject dataObject : dataObjects) {
+            FileObject fileObject = dataObject.getPrimaryFile();
+            if (fileObject.isFolder()) {
+                Enumeration<? extends FileObject> children = fileObject.getChildren(true);
+                while (children.hasMoreElements()) {
+                    FileObject child = children.nextElement();
+                    if (child.isData() && isText(child)) {
+                        files.add(child);
+                    }
+                }
+            } else if (isText(fileObject)) {
+                files.add(fileObject);
+            }
+        }
+        return new ArrayList<>(files);
+    }
+
+    private static boolean isText(FileObject fileObject) {
+        return fileObject.getMIMEType().startsWith("text/"); // NOI18N
+    }
+
+    /**
+     * Run the operation on all files and print a summary to the Output
+     * window. Returns immediately.
+     */
+    static RequestProcessor.Task run(final String operationName, final List<FileObject> files, final Operation operation) {
+        return COORDINATOR.post(new Runnable() {
+            @Override
+            public void run() {
+                final ProgressHandle progress = ProgressHandle.createHandle(
+                        NbBundle.getMessage(BatchRunner.class, "MSG_BatchProgress", operationName)); // NOI18N
+                progress.start(files.size());
+                final AtomicInteger done = new AtomicInteger();
+                final List<FileObject> changed = Collections.synchronizedList(new ArrayList<FileObject>());
+                final List<String> failed = Collections.synchronizedList(new ArrayList<String>());
+                try {
+                    List<RequestProcessor.Task> tasks = new ArrayList<>(files.size());
+                    for (final FileObject fileObject : files) {
+                        tasks.add(RP.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                File file = FileUtil.toFile(fileObject);
+                                try {
+                                    if (DataObject.find(fileObject).isModified()) {
+                                        // saving it would overwrite the result
+                                        failed.add(fileObject.getPath() + ": " // NOI18N
+                                                + NbBundle.getMessage(BatchRunner.class, "MSG_BatchModified")); // NOI18N
+                                        return;
+                                    }
+                                    if (file != null && operation.apply(file, FileEncodingQuery.getEncoding(fileObject))) {
+                                        changed.add(fileObject);
+                                        fileObject.refresh();
+                                    }
+                                } catch (IOException ex) {
+                                    failed.add(fileObject.getPath() + ": " + ex.getMessage()); // NOI18N
+                                } finally {
+                                    // in the order the files complete in
+                                    progress.progress(fileObject.getNameExt(), done.incrementAndGet());
+                                }
+                            }
+                        }));
+                    }
+                    for (RequestProcessor.Task task : tasks) {
+                        task.waitFinished();
+                    }
+                } catch (RuntimeException ex) {
+                    ErrorManager.getDefault().notify(ex);
+                } finally {
+                    progress.finish();
+                }
+                printSummary(operationName, files.size(), changed, failed);
+            }
+        });
+    }
+
+    private static void printSummary(String operationName, int total, List<FileObject> changed, List<String> failed) {
+        InputOutput io = IOProvider.getDefault().getIO(NbBundle.getMessage(BatchRunner.class, "TITLE_BatchOutput"), false); // NOI18N
+        io.select();
+        try (PrintWriter pw = new PrintWriter(io.getOut())) {
+            pw.println(NbBundle.getMessage(BatchRunner.class, "MSG_BatchSummary", // NOI18N
+                    operationName, total, changed.size(), failed.size()));
+            for (FileObject fileObject : changed) {
+                pw.println(fileObject.getPath());
+            }
+        }
+        if (!failed.isEmpty()) {
+            try (PrintWriter pw = new PrintWriter(io.getErr())) {
+                for (String failure : failed) {
+                    pw.println(failure);
+                }
+            }
+        }
+    }
+}
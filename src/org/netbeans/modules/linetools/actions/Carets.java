@@ -0,0 +1,245 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.actions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Caret;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.Position;
+import org.netbeans.api.editor.caret.CaretInfo;
+import org.netbeans.api.editor.caret.CaretMoveContext;
+import org.netbeans.api.editor.caret.EditorCaret;
+import org.netbeans.modules.csl.api.OffsetRange;
+import org.netbeans.spi.editor.caret.CaretMoveHandler;
+import org.openide.ErrorManager;
+
+/**
+ * Gives the line operations a uniform view of all carets of a text component.
+ * With an {@link EditorCaret} every caret is a {@link Region}, with any other
+ * caret there is exactly one. The regions are sorted by their offsets so the
+ * operations can process them back to front in one atomic modification, and
+ * caret updates are applied in one transaction.
+ */
+final class Carets {
+
+    private Carets() {
+    }
+
+    /**
+     * The dot and mark of one caret.
+     */
+    static final class Region {
+
+        private final int index;
+        private final int dot;
+        private final int mark;
+        private final boolean selection;
+
+        Region(int index, int dot, int mark, boolean selection) {
+            this.index = index;
+            this.dot = dot;
+            this.mark = mark;
+            this.selection = selection;
+        }
+
+        int getDot() {
+            return dot;
+        }
+
+        int getMark() {
+            return mark;
+        }
+
+        int getStart() {
+            return Math.min(dot, mark);
+        }
+
+        int getEnd() {
+            return Math.max(dot, mark);
+        }
+
+        boolean isSelection() {
+            return selection;
+        }
+
+        boolean isBackwardSelection() {
+            return dot >= mark;
+        }
+    }
+
+    /**
+     * The regions of all carets ordered by their position in the document.
+     *
+     * @param textComponent
+     * @return
+     */
+    static List<Region> getRegions(JTextComponent textComponent) {
+        Caret caret = textComponent.getCaret();
+        if (caret instanceof EditorCaret) {
+            List<CaretInfo> carets = ((EditorCaret) caret).getSortedCarets();
+            List<Region> regions = new ArrayList<>(carets.size());
+            for (int i = 0; i < carets.size(); i++) {
+                CaretInfo caretInfo = carets.get(i);
+                regions.add(new Region(i, caretInfo.getDot(), caretInfo.getMark(), caretInfo.isSelectionShowing()));
+            }
+            return regions;
+        }
+        return Collections.singletonList(new Region(0, caret.getDot(), caret.getMark(), caret.isSelectionVisible()));
+    }
+
+    static boolean hasSelection(List<Region> regions) {
+        for (Region region : regions) {
+            if (region.isSelection()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The zero based line number ranges spanned by the regions. Overlapping
+     * ranges are merged, the result is ordered from the end of the document to
+     * its start so that modifying one range does not shift the others.
+     *
+     * @param selectionsOnly skip the regions without a selection
+     * @return
+     */
+    static List<OffsetRange> getLineRanges(Document doc, List<Region> regions, boolean selectionsOnly) {
+        Element rootElement = doc.getDefaultRootElement();
+        List<OffsetRange> spanned = new ArrayList<>(regions.size());
+        for (Region region : regions) {
+            if (selectionsOnly && !region.isSelection()) {
+                continue;
+            }
+            int start = region.getStart();
+            int end = region.isSelection() ? region.getEnd() - 1 : start;
+            int startLine = rootElement.getElementIndex(start);
+            int endLine = rootElement.getElementIndex(Math.max(start, end));
+            if (startLine != -1 && endLine != -1) {
+                spanned.add(new OffsetRange(startLine, endLine));
+            }
+        }
+        Collections.sort(spanned);
+
+        List<OffsetRange> lineRanges = new ArrayList<>(spanned.size());
+        for (OffsetRange lineRange : spanned) {
+            int last = lineRanges.size() - 1;
+            if (last >= 0 && lineRanges.get(last).getEnd() >= lineRange.getStart()) {
+                OffsetRange merged = lineRanges.get(last);
+                lineRanges.set(last, new OffsetRange(merged.getStart(), Math.max(merged.getEnd(), lineRange.getEnd())));
+            } else {
+                lineRanges.add(lineRange);
+            }
+        }
+        Collections.reverse(lineRanges);
+        return lineRanges;
+    }
+
+    /**
+     * Move the dots of the carets, keeping their marks.
+     *
+     * @param regions as returned by {@link #getRegions}
+     * @param dots the new dot for each region, <code>-1</code> to leave the
+     * caret alone
+     */
+    static void moveDots(JTextComponent textComponent, final List<Region> regions, final int[] dots) {
+        Caret caret = textComponent.getCaret();
+        if (caret instanceof EditorCaret) {
+            final Document doc = textComponent.getDocument();
+            ((EditorCaret) caret).moveCarets(new CaretMoveHandler() {
+                @Override
+                public void moveCarets(CaretMoveContext context) {
+                    List<CaretInfo> carets = context.getOriginalSortedCarets();
+                    for (int i = 0; i < regions.size(); i++) {
+                        int index = regions.get(i).index;
+                        if (dots[i] != -1 && index < carets.size()) {
+                            try {
+                                context.moveDot(carets.get(index), doc.createPosition(dots[i]), Position.Bias.Forward);
+                            } catch (BadLocationException ex) {
+                                ErrorManager.getDefault().notify(ErrorManager.INFORMATIONAL, ex);
+                            }
+                        }
+                    }
+                }
+            });
+        } else if (dots[0] != -1) {
+            caret.moveDot(dots[0]);
+        }
+    }
+
+    /**
+     * Set dot and mark of the carets.
+     *
+     * @param regions as returned by {@link #getRegions}
+     * @param dots the new dot for each region
+     * @param marks the new mark for each region
+     */
+    static void setDotsAndMarks(JTextComponent textComponent, final List<Region> regions, final int[] dots, final int[] marks) {
+        Caret caret = textComponent.getCaret();
+        if (caret instanceof EditorCaret) {
+            final Document doc = textComponent.getDocument();
+            ((EditorCaret) caret).moveCarets(new CaretMoveHandler() {
+                @Override
+                public void moveCarets(CaretMoveContext context) {
+                    List<CaretInfo> carets = context.getOriginalSortedCarets();
+                    for (int i = 0; i < regions.size(); i++) {
+                        int index = regions.get(i).index;
+                        if (index < carets.size()) {
+                            try {
+                                context.setDotAndMark(carets.get(index),
+                                        doc.createPosition(dots[i]), Position.Bias.Forward,
+                                        doc.createPosition(marks[i]), Position.Bias.Forward);
+                            } catch (BadLocationException ex) {
+                                ErrorManager.getDefault().notify(ErrorManager.INFORMATIONAL, ex);
+                            }
+                        }
+                    }
+                }
+            });
+        } else {
+            caret.setDot(marks[0]);
+            if (dots[0] != marks[0]) {
+                caret.moveDot(dots[0]);
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.actions;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Segment;
+import org.netbeans.modules.linetools.engine.TextSearch;
+
+/**
+ * Per document index of the char positions on long lines. The index of a line
+ * is built on the first zap on that line and records for each char the
+ * ascending positions relative to the line start, so finding the n-th
+ * occurrence is a binary search. Edits only invalidate the indexes of the
+ * lines they touch.
+ * <p>
+ * Only used if {@link LineOperations#isIndexLongLines()} is enabled, the
+ * index keeps a position per char of each indexed line. Lines shorter than
+ * {@link #MIN_LINE_LENGTH} are not worth indexing and should be scanned by
+ * {@link CharScanner}. Must be used while holding at least the document's
+ * read lock.
+ */
+final class CharOccurrenceIndex implements DocumentListener {
+
+    static final int MIN_LINE_LENGTH = 4096;
+
+    private static final int MAX_INDEXED_LINES = 16;
+
+    private final Document doc;
+
+    private final Map<Element, LineIndex> lines = new LinkedHashMap<Element, LineIndex>(MAX_INDEXED_LINES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Element, LineIndex> eldest) {
+            return size() > MAX_INDEXED_LINES;
+        }
+    };
+
+    private CharOccurrenceIndex(Document doc) {
+        this.doc = doc;
+    }
+
+    static synchronized CharOccurrenceIndex get(Document doc) {
+        CharOccurrenceIndex index = (CharOccurrenceIndex) doc.getProperty(CharOccurrenceIndex.class);
+        if (index == null) {
+            index = new CharOccurrenceIndex(doc);
+            doc.putProperty(CharOccurrenceIndex.class, index);
+            doc.addDocumentListener(index);
+        }
+        return index;
+    }
+
+    /**
+     * Find the <code>times</code>-th occurrence of a char in
+     * <code>[start, end)</code> of a line.
+     *
+     * @param forward count from <code>start</code>, otherwise from
+     * <code>end</code>
+     * @return the document offset or <code>-1</code>
+     */
+    int find(Element lineElement, int start, int end, char c, boolean matchCase, int times, boolean forward) throws BadLocationException {
+        if (times <= 0) {
+            return -1;
+        }
+        int lineStartOffset = lineElement.getStartOffset();
+        LineIndex lineIndex;
+        synchronized (this) {
+            lineIndex = lines.get(lineElement);
+            if (lineIndex == null) {
+                lineIndex = new LineIndex(doc, lineStartOffset,
+                        Math.min(lineElement.getEndOffset(), doc.getLength()) - lineStartOffset);
+                lines.put(lineElement, lineIndex);
+            }
+        }
+        int position = lineIndex.find(start - lineStartOffset, end - lineStartOffset, c, matchCase, times, forward);
+        return position == -1 ? -1 : lineStartOffset + position;
+    }
+
+    @Override
+    public void insertUpdate(DocumentEvent e) {
+        invalidate(e);
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e) {
+        invalidate(e);
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e) {
+    }
+
+    private synchronized void invalidate(DocumentEvent e) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        Element rootElement = doc.getDefaultRootElement();
+        DocumentEvent.ElementChange change = e.getChange(rootElement);
+        if (change != null) {
+            for (Element removed : change.getChildrenRemoved()) {
+                lines.remove(removed);
+            }
+        }
+        int startLine = rootElement.getElementIndex(e.getOffset());
+        int endLine = e.getType() == DocumentEvent.EventType.INSERT
+                ? rootElement.getElementIndex(e.getOffset() + e.getLength())
+                : startLine;
+        for (int i = startLine; i <= endLine && i != -1; i++) {
+            lines.remove(rootElement.getElement(i));
+        }
+    }
+
+    /**
+     * Char positions of one line, grouped by char. The positions of
+     * <code>keys[k]</code> are
+     * <code>positions[starts[k]] .. positions[starts[k + 1] - 1]</code>.
+     */
+    private static final class LineIndex {
+
+        private final Group exact;
+        private Group lowerCase;
+        private char[] text;
+
+        LineIndex(Document doc, int lineStartOffset, int length) throws BadLocationException {
+            // the chars are kept to derive the case-insensitive grouping
+            // lazily, they are dropped once it exists
+            Segment segment = new Segment();
+            doc.getText(lineStartOffset, length, segment);
+            text = new char[length];
+            System.arraycopy(segment.array, segment.offset, text, 0, length);
+            exact = new Group(text, false);
+        }
+
+        synchronized int find(int start, int end, char c, boolean matchCase, int times, boolean forward) {
+            Group group;
+            if (matchCase) {
+                group = exact;
+            } else {
+                if (lowerCase == null) {
+                    lowerCase = new Group(text, true);
+                    text = null;
+                }
+                group = lowerCase;
+                c = TextSearch.toLowerCase(c);
+            }
+            return group.find(start, end, c, times, forward);
+        }
+    }
+
+    private static final class Group {
+
+        private final char[] keys;
+        private final int[] starts;
+        private final int[] positions;
+
+        Group(char[] text, boolean lowerCase) {
+            // the sorted chars give the keys and where their positions
+            // start, without a count for every possible char
+            char[] sorted = new char[text.length];
+            for (int i = 0; i < text.length; i++) {
+                sorted[i] = lowerCase ? TextSearch.toLowerCase(text[i]) : text[i];
+            }
+            Arrays.sort(sorted);
+            int distinct = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    distinct++;
+                }
+            }
+            keys = new char[distinct];
+            starts = new int[distinct + 1];
+            for (int i = 0, k = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    keys[k] = sorted[i];
+                    starts[k] = i;
+                    k++;
+                }
+            }
+            starts[distinct] = sorted.length;
+            // the insert pointers of the keys
+            int[] next = Arrays.copyOf(starts, distinct);
+            positions = new int[text.length];
+            for (int i = 0; i < text.length; i++) {
+                char ch = lowerCase ? TextSearch.toLowerCase(text[i]) : text[i];
+                positions[next[Arrays.binarySearch(keys, ch)]++] = i;
+            }
+        }
+
+        int find(int start, int end, char c, int times, boolean forward) {
+            int k = Arrays.binarySearch(keys, c);
+            if (k < 0) {
+                return -1;
+            }
+            int from = starts[k];
+            int to = starts[k + 1];
+            int i;
+            if (forward) {
+                // first position >= start
+                i = lowerBound(from, to, start) + times - 1;
+                return i < to && positions[i] < end ? positions[i] : -1;
+            } else {
+                // last position < end
+                i = lowerBound(from, to, end) - times;
+                return i >= from && positions[i] >= start ? positions[i] : -1;
+            }
+        }
+
+        private int lowerBound(int from, int to, int position) {
+            while (from < to) {
+                int mid = (from + to) >>> 1;
+                if (positions[mid] < position) {
+                    from = mid + 1;
+                } else {
+                    to = mid;
+                }
+            }
+            return from;
+        }
+    }
+}
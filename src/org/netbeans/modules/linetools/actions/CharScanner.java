@@ -0,0 +1,169 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.actions;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+import org.netbeans.modules.linetools.engine.TextSearch;
+
+/**
+ * Finds the n-th occurrence of a char in a range of a document without
+ * copying the text. The document content is read in chunks of at most
+ * {@link #CHUNK} chars into a reused {@link Segment} in partial return mode,
+ * so the segment points into the document's own buffer.
+ * <p>
+ * Must be called while holding at least the document's read lock.
+ */
+final class CharScanner {
+
+    static final int CHUNK = 16 * 1024;
+
+    private static final ThreadLocal<Segment> SEGMENT = new ThreadLocal<Segment>() {
+        @Override
+        protected Segment initialValue() {
+            Segment segment = new Segment();
+            segment.setPartialReturn(true);
+            return segment;
+        }
+    };
+
+    private CharScanner() {
+    }
+
+    /**
+     * Scan forward from <code>start</code>.
+     *
+     * @return the offset of the <code>times</code>-th occurrence in
+     * <code>[start, end)</code> or <code>-1</code>
+     */
+    static int forward(Document doc, int start, int end, char c, boolean matchCase, int times) throws BadLocationException {
+        return forward(doc, start, end, c, matchCase, new int[]{times});
+    }
+
+    /**
+     * Scan forward from <code>start</code>, to continue a scan in the next
+     * range.
+     *
+     * @param count the occurrences still to find, decreased by the ones
+     * found in the range
+     */
+    static int forward(Document doc, int start, int end, char c, boolean matchCase, int[] count) throws BadLocationException {
+        end = Math.min(end, doc.getLength());
+        char lowerCase = TextSearch.toLowerCase(c);
+        Segment segment = SEGMENT.get();
+        try {
+            int offset = start;
+            while (offset < end) {
+                doc.getText(offset, Math.min(CHUNK, end - offset), segment);
+                char[] array = segment.array;
+                int arrayStart = segment.offset;
+                int arrayEnd = arrayStart + segment.count;
+                for (int i = arrayStart; i < arrayEnd; i++) {
+                    if (matches(array[i], c, lowerCase, matchCase) && --count[0] == 0) {
+                        return offset + i - arrayStart;
+                    }
+                }
+                offset += segment.count;
+            }
+            return -1;
+        } finally {
+            release(segment);
+        }
+    }
+
+    /**
+     * Scan backward from <code>end</code>.
+     *
+     * @return the offset of the <code>times</code>-th occurrence in
+     * <code>[start, end)</code> counted from <code>end</code> or
+     * <code>-1</code>
+     */
+    static int backward(Document doc, int start, int end, char c, boolean matchCase, int times) throws BadLocationException {
+        return backward(doc, start, end, c, matchCase, new int[]{times});
+    }
+
+    /**
+     * Scan backward from <code>end</code>, to continue a scan in the
+     * previous range.
+     *
+     * @param count the occurrences still to find, decreased by the ones
+     * found in the range
+     */
+    static int backward(Document doc, int start, int end, char c, boolean matchCase, int[] count) throws BadLocationException {
+        end = Math.min(end, doc.getLength());
+        char lowerCase = TextSearch.toLowerCase(c);
+        Segment segment = SEGMENT.get();
+        try {
+            while (end > start) {
+                int chunkStart = Math.max(start, end - CHUNK);
+                // a partial return stops at the gap of the content, so the
+                // chunk may come in pieces; they are scanned from the last
+                int pieceEnd = end;
+                while (pieceEnd > chunkStart) {
+                    int pieceStart = chunkStart;
+                    doc.getText(pieceStart, pieceEnd - pieceStart, segment);
+                    while (pieceStart + segment.count < pieceEnd) {
+                        pieceStart += segment.count;
+                        doc.getText(pieceStart, pieceEnd - pieceStart, segment);
+                    }
+                    for (int i = segment.offset + segment.count - 1; i >= segment.offset; i--) {
+                        if (matches(segment.array[i], c, lowerCase, matchCase) && --count[0] == 0) {
+                            return pieceStart + i - segment.offset;
+                        }
+                    }
+                    pieceEnd = pieceStart;
+                }
+                end = chunkStart;
+            }
+            return -1;
+        } finally {
+            release(segment);
+        }
+    }
+
+    static boolean matches(char ch, char c, char lowerCase, boolean matchCase) {
+        return ch == c || (!matchCase && TextSearch.toLowerCase(ch) == lowerCase);
+    }
+
+    private static void release(Segment segment) {
+        // do not keep the document's buffer reachable
+        segment.array = null;
+        segment.offset = 0;
+        segment.count = 0;
+    }
+}
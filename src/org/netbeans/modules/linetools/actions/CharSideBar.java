@@ -45,6 +45,7 @@ import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
+import java.util.regex.PatternSyntaxException;
 import javax.swing.AbstractAction;
 import javax.swing.BorderFactory;
 import javax.swing.ImageIcon;
@@ -61,6 +62,7 @@ import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.text.JTextComponent;
 import org.netbeans.api.editor.EditorRegistry;
+import org.netbeans.modules.linetools.engine.TextSearch;
 import org.netbeans.modules.linetools.utils.Utils;
 import org.netbeans.spi.editor.SideBarFactory;
 import org.openide.awt.StatusDisplayer;
@@ -80,6 +82,16 @@ public final class CharSideBar extends JToolBar implements HelpCtx.Provider {
     private JTextField charTextField;
     private final JCheckBox matchCaseCheckBox;
     private final JLabel matchCaseLabel;
+    private final JCheckBox acrossLinesCheckBox;
+    private final JLabel acrossLinesLabel;
+    private final JCheckBox stringCheckBox;
+    private final JLabel stringLabel;
+    private final JCheckBox regexCheckBox;
+    private final JLabel regexLabel;
+
+    // the last compiled string or regex search and what it was compiled from
+    private TextSearch textSearch;
+    private String textSearchKey;
 
     static enum MODE {
         FROM,
@@ -151,7 +163,13 @@ public final class CharSideBar extends JToolBar implements HelpCtx.Provider {
                 StatusDisplayer.getDefault().setStatusText("");
                 // text changed - zap
                 String text = charTextField.getText();
-                if (text.length() > 0) {
+                if (isTextMode()) {
+                    // wait for ENTER, the text is not complete yet
+                    if (text.length() > 0) {
+                        StatusDisplayer.getDefault().setStatusText(
+                                NbBundle.getMessage(CharSideBar.class, "MSG_ForceOperation")); // NOI18N
+                    }
+                } else if (text.length() > 0) {
                     try {
                         Integer.parseInt(text);
                         StatusDisplayer.getDefault().setStatusText(
@@ -168,7 +186,11 @@ public final class CharSideBar extends JToolBar implements HelpCtx.Provider {
             public void actionPerformed(ActionEvent e) {
                 String text = charTextField.getText();
                 if (text.length() > 0) {
-                    doCharOperation(text);
+                    if (isTextMode()) {
+                        doTextOperation(text);
+                    } else {
+                        doCharOperation(text);
+                    }
                 } else {
                     LineOperations.beep();
                 }
@@ -187,11 +209,61 @@ public final class CharSideBar extends JToolBar implements HelpCtx.Provider {
         });
         matchCaseLabel = new JLabel(NbBundle.getMessage(CharSideBar.class, "CTL_MatchCase")); // NOI18N
 
+        // configure across lines check box
+        acrossLinesCheckBox = new JCheckBox("", false);
+        acrossLinesCheckBox.setFocusPainted(false);
+        acrossLinesCheckBox.setMargin(new Insets(1, 5, 1, 5));
+        acrossLinesCheckBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                charTextField.requestFocusInWindow();
+            }
+        });
+        acrossLinesCheckBox.setToolTipText(NbBundle.getMessage(CharSideBar.class, "TOOLTIP_AcrossLines")); // NOI18N
+        acrossLinesLabel = new JLabel(NbBundle.getMessage(CharSideBar.class, "CTL_AcrossLines")); // NOI18N
+
+        // configure string and regex check boxes, at most one is selected
+        stringCheckBox = new JCheckBox("", false);
+        stringCheckBox.setFocusPainted(false);
+        stringCheckBox.setMargin(new Insets(1, 5, 1, 5));
+        stringCheckBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (stringCheckBox.isSelected()) {
+                    regexCheckBox.setSelected(false);
+                }
+                charTextField.requestFocusInWindow();
+            }
+        });
+        stringCheckBox.setToolTipText(NbBundle.getMessage(CharSideBar.class, "TOOLTIP_String")); // NOI18N
+        stringLabel = new JLabel(NbBundle.getMessage(CharSideBar.class, "CTL_String")); // NOI18N
+
+        regexCheckBox = new JCheckBox("", false);
+        regexCheckBox.setFocusPainted(false);
+        regexCheckBox.setMargin(new Insets(1, 5, 1, 5));
+        regexCheckBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (regexCheckBox.isSelected()) {
+                    stringCheckBox.setSelected(false);
+                }
+                charTextField.requestFocusInWindow();
+            }
+        });
+        regexCheckBox.setToolTipText(NbBundle.getMessage(CharSideBar.class, "TOOLTIP_Regex")); // NOI18N
+        regexLabel = new JLabel(NbBundle.getMessage(CharSideBar.class, "CTL_Regex")); // NOI18N
+
         add(closeButton);
         add(charLabel);
         add(charTextField);
         add(matchCaseCheckBox);
         add(matchCaseLabel);
+        add(acrossLinesCheckBox);
+        add(acrossLinesLabel);
+        add(stringCheckBox);
+        add(stringLabel);
+        add(regexCheckBox);
+        add(regexLabel);
 
         // padding
         add(new JPanel());
@@ -230,16 +302,74 @@ public final class CharSideBar extends JToolBar implements HelpCtx.Provider {
         looseFocus();
         switch (mode) {
             case FROM:
-                LineOperations.fromChar(EditorRegistry.focusedComponent(), opChar, matchCaseCheckBox.isSelected(), times);
+                LineOperations.fromChar(EditorRegistry.focusedComponent(), opChar, matchCaseCheckBox.isSelected(), times,
+                        acrossLinesCheckBox.isSelected());
+                break;
+            case AFTER:
+                LineOperations.afterChar(EditorRegistry.focusedComponent(), opChar, matchCaseCheckBox.isSelected(), times,
+                        acrossLinesCheckBox.isSelected());
+                break;
+            case UPTO:
+                LineOperations.uptoChar(EditorRegistry.focusedComponent(), opChar, matchCaseCheckBox.isSelected(), times,
+                        acrossLinesCheckBox.isSelected());
+                break;
+            case TO:
+                LineOperations.toChar(EditorRegistry.focusedComponent(), opChar, matchCaseCheckBox.isSelected(), times,
+                        acrossLinesCheckBox.isSelected());
+                break;
+        }
+    }
+
+    private boolean isTextMode() {
+        return stringCheckBox.isSelected() || regexCheckBox.isSelected();
+    }
+
+    private void doTextOperation(String text) {
+        // like a char, the text may be preceded by the count
+        int times = 1;
+        int digits = 0;
+        while (digits < text.length() && Character.isDigit(text.charAt(digits))) {
+            digits++;
+        }
+        if (digits > 0 && digits < text.length()) {
+            try {
+                times = Integer.parseInt(text.substring(0, digits));
+                text = text.substring(digits);
+            } catch (NumberFormatException nfe) {
+                LineOperations.beep();
+                return;
+            }
+        }
+        boolean regex = regexCheckBox.isSelected();
+        boolean matchCase = matchCaseCheckBox.isSelected();
+        // reuse the compiled search while the text and flags are unchanged
+        String key = (regex ? "r" : "s") + (matchCase ? "c" : "i") + text; // NOI18N
+        if (!key.equals(textSearchKey)) {
+            try {
+                textSearch = regex ? TextSearch.regex(text, matchCase) : TextSearch.literal(text, matchCase);
+                textSearchKey = key;
+            } catch (PatternSyntaxException pse) {
+                StatusDisplayer.getDefault().setStatusText(
+                        NbBundle.getMessage(CharSideBar.class, "MSG_InvalidRegex", pse.getDescription())); // NOI18N
+                LineOperations.beep();
+                return;
+            }
+        }
+        looseFocus();
+        boolean acrossLines = acrossLinesCheckBox.isSelected();
+        JTextComponent textComponent = EditorRegistry.focusedComponent();
+        switch (mode) {
+            case FROM:
+                LineOperations.zapText(textComponent, textSearch, times, acrossLines, false, false);
                 break;
             case AFTER:
-                LineOperations.afterChar(EditorRegistry.focusedComponent(), opChar, matchCaseCheckBox.isSelected(), times);
+                LineOperations.zapText(textComponent, textSearch, times, acrossLines, false, true);
                 break;
             case UPTO:
-                LineOperations.uptoChar(EditorRegistry.focusedComponent(), opChar, matchCaseCheckBox.isSelected(), times);
+                LineOperations.zapText(textComponent, textSearch, times, acrossLines, true, false);
                 break;
             case TO:
-                LineOperations.toChar(EditorRegistry.focusedComponent(), opChar, matchCaseCheckBox.isSelected(), times);
+                LineOperations.zapText(textComponent, textSearch, times, acrossLines, true, true);
                 break;
         }
     }
@@ -0,0 +1,107 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.actions;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+
+/**
+ * A read only view of a document's text that does not copy it. Chars are read
+ * through a window of up to {@link CharScanner#CHUNK} chars obtained with a
+ * partial return {@link Segment}, which points into the document's buffer.
+ * <p>
+ * Only valid while the caller holds the document's read lock.
+ */
+final class DocumentCharSequence implements CharSequence {
+
+    private final Document doc;
+    private final int length;
+    private final Segment window = new Segment();
+    private int windowStart;
+    private int windowEnd;
+
+    DocumentCharSequence(Document doc) {
+        this.doc = doc;
+        this.length = doc.getLength();
+        this.window.setPartialReturn(true);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < windowStart || index >= windowEnd) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(String.valueOf(index));
+            }
+            // move the window to start a bit before the index, backward
+            // scans stay inside it as well
+            int start = Math.max(0, Math.min(index - CharScanner.CHUNK / 4, length - CharScanner.CHUNK));
+            try {
+                doc.getText(start, Math.min(CharScanner.CHUNK, length - start), window);
+                if (index >= start + window.count) {
+                    // the window ended at the gap of the content
+                    start = index;
+                    doc.getText(start, Math.min(CharScanner.CHUNK, length - start), window);
+                }
+            } catch (BadLocationException ex) {
+                throw new IndexOutOfBoundsException(ex.getMessage());
+            }
+            windowStart = start;
+            windowEnd = start + window.count;
+        }
+        return window.array[window.offset + index - windowStart];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        try {
+            return doc.getText(start, end - start);
+        } catch (BadLocationException ex) {
+            throw new IndexOutOfBoundsException(ex.getMessage());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length).toString();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.actions;
+
+import javax.swing.text.Document;
+import org.netbeans.modules.linetools.engine.SortOptions;
+
+/**
+ * The options of the line operations, captured when an operation starts so
+ * that toggling an option does not change an operation that is running.
+ * Immutable, a document can carry its own options that override the global
+ * ones.
+ */
+final class LineOperationOptions {
+
+    private final boolean matchCase;
+    private final boolean removeDuplicateLines;
+    private final boolean parallelFilter;
+    private final int filterShards;
+    private final int zapDistance;
+
+    LineOperationOptions(boolean matchCase, boolean removeDuplicateLines, boolean parallelFilter, int filterShards,
+            int zapDistance) {
+        this.matchCase = matchCase;
+        this.removeDuplicateLines = removeDuplicateLines;
+        this.parallelFilter = parallelFilter;
+        this.filterShards = Math.max(1, filterShards);
+        this.zapDistance = Math.max(0, zapDistance);
+    }
+
+    /**
+     * The options of the document if it has its own, otherwise the global
+     * options as they are now.
+     */
+    static LineOperationOptions forDocument(Document doc) {
+        Object options = doc.getProperty(LineOperationOptions.class);
+        return options instanceof LineOperationOptions ? (LineOperationOptions) options : LineOperations.getOptions();
+    }
+
+    /**
+     * Give the document its own options.
+     *
+     * @param options the options, or null to use the global options again
+     */
+    static void setDocumentOptions(Document doc, LineOperationOptions options) {
+        doc.putProperty(LineOperationOptions.class, options);
+    }
+
+    boolean isMatchCase() {
+        return matchCase;
+    }
+
+    boolean isRemoveDuplicateLines() {
+        return removeDuplicateLines;
+    }
+
+    boolean isParallelFilter() {
+        return parallelFilter;
+    }
+
+    int getFilterShards() {
+        return filterShards;
+    }
+
+    /**
+     * The number of shards a filter runs in, one if the filter does not run
+     * in parallel.
+     */
+    int getEffectiveFilterShards() {
+        return parallelFilter ? filterShards : 1;
+    }
+
+    int getZapDistance() {
+        return zapDistance;
+    }
+
+    SortOptions getSortOptions(boolean descending) {
+        return new SortOptions(descending, matchCase, removeDuplicateLines);
+    }
+
+    LineOperationOptions withMatchCase(boolean matchCase) {
+        return new LineOperationOptions(matchCase, removeDuplicateLines, parallelFilter, filterShards, zapDistance);
+    }
+
+    LineOperationOptions withRemoveDuplicateLines(boolean removeDuplicateLines) {
+        return new LineOperationOptions(matchCase, removeDuplicateLines, parallelFilter, filterShards, zapDistance);
+    }
+
+    LineOperationOptions withParallelFilter(boolean parallelFilter, int filterShards) {
+        return new LineOperationOptions(matchCase, removeDuplicateLines, parallelFilter, filterShards, zapDistance);
+    }
+
+    LineOperationOptions withZapDistance(int zapDistance) {
+        return new LineOperationOptions(matchCase, removeDuplicateLines, parallelFilter, filterShards, zapDistance);
+    }
+
+    @Override
+    public String toString() {
+        return "LineOperationOptions[matchCase=" + matchCase // NOI18N
+                + ", removeDuplicateLines=" + removeDuplicateLines // NOI18N
+                + ", parallelFilter=" + parallelFilter // NOI18N
+                + ", filterShards=" + filterShards // NOI18N
+                + ", zapDistance=" + zapDistance + "]"; // NOI18N
+    }
+}
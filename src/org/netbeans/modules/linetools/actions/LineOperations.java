@@ -47,25 +47,36 @@ import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Locale;
-import java.util.Set;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.prefs.Preferences;
 import javax.swing.text.BadLocationException;
-import javax.swing.text.Caret;
 import javax.swing.text.Document;
 import javax.swing.text.Element;
 import javax.swing.text.JTextComponent;
-import org.netbeans.api.annotations.common.CheckForNull;
+import javax.swing.text.Segment;
 import org.netbeans.editor.BaseDocument;
 import org.netbeans.modules.csl.api.OffsetRange;
+import org.netbeans.modules.linetools.engine.AdmissionControl;
+import org.netbeans.modules.linetools.engine.CycleTable;
+import org.netbeans.modules.linetools.engine.EditScript;
+import org.netbeans.modules.linetools.engine.ExternalSorter;
+import org.netbeans.modules.linetools.engine.FilterProcess;
+import org.netbeans.modules.linetools.engine.FilterStatistics;
+import org.netbeans.modules.linetools.engine.LineArena;
+import org.netbeans.modules.linetools.engine.LinePermutation;
+import org.netbeans.modules.linetools.engine.LineSorter;
+import org.netbeans.modules.linetools.engine.OperationProfile;
+import org.netbeans.modules.linetools.engine.ShardedFilter;
+import org.netbeans.modules.linetools.engine.SortOptions;
+import org.netbeans.modules.linetools.engine.TextSearch;
+import org.netbeans.modules.linetools.engine.TextTransform;
+import org.netbeans.modules.linetools.engine.TokenCycleTable;
 import org.openide.DialogDisplayer;
 import org.openide.ErrorManager;
 import org.openide.NotifyDescriptor;
+import org.openide.awt.StatusDisplayer;
+import org.openide.util.NbBundle;
+import org.openide.util.NbPreferences;
 import org.openide.windows.IOProvider;
 import org.openide.windows.InputOutput;
 
@@ -82,25 +93,39 @@ public final class LineOperations {
     public static final String FILE_SEPARATOR_DOT = File.separatorChar + DOT;
     public static final String FILE_SEPARATOR_DOT_DASH = FILE_SEPARATOR_DOT + DASH;
     public static final String FILE_SEPARATORS_DOT_DASH = FILE_SEPARATORS + DOT + DASH;
-    private static final Comparator<String> STRING_COMPARATOR = new CustomComparator(Locale.ENGLISH);
-    private static final Comparator<String> REVERSE_STRING_COMPARATOR = Collections.reverseOrder(new CustomComparator(Locale.ENGLISH));
-    private static final Comparator<String> STRING_COMPARATOR_CASE_INSENSITIVE = new CustomComparator(Locale.ENGLISH, false);
-    private static final Comparator<String> REVERSE_STRING_COMPARATOR_CASE_INSENSITIVE = Collections.reverseOrder(new CustomComparator(Locale.ENGLISH, false));
+
+    static final String PREF_TOKEN_CYCLES = "tokenCycles"; // NOI18N
+    static final String PREF_INDEX_LONG_LINES = "indexLongLines"; // NOI18N
+    static final String DEFAULT_TOKEN_CYCLES
+            = "true false\n" // NOI18N
+            + "public protected private\n" // NOI18N
+            + "DEBUG INFO WARN ERROR\n" // NOI18N
+            + "== !=\n"; // NOI18N
 
     private static volatile boolean removeDuplicateLines;
     private static volatile boolean matchCase = true;
+    private static volatile boolean parallelFilter;
+    private static volatile int filterShards = Runtime.getRuntime().availableProcessors();
+    private static volatile int zapDistance = 1024 * 1024;
+
+    // the chars an across lines zap scans under one read lock
+    static final int ZAP_CHUNK = 4 * CharScanner.CHUNK;
 
     private LineOperations() {
     }
 
     static void exchangeDotAndMark(JTextComponent textComponent) {
-        Caret caret = textComponent.getCaret();
+        List<Carets.Region> regions = Carets.getRegions(textComponent);
         // check if there is a selection
-        if (caret.isSelectionVisible()) {
-            int selStart = caret.getDot();
-            int selEnd = caret.getMark();
-            caret.setDot(selStart);
-            caret.moveDot(selEnd);
+        if (Carets.hasSelection(regions)) {
+            int[] dots = new int[regions.size()];
+            int[] marks = new int[regions.size()];
+            for (int i = 0; i < dots.length; i++) {
+                Carets.Region region = regions.get(i);
+                dots[i] = region.isSelection() ? region.getMark() : region.getDot();
+                marks[i] = region.isSelection() ? region.getDot() : region.getMark();
+            }
+            Carets.setDotsAndMarks(textComponent, regions, dots, marks);
         }
     }
 
@@ -117,11 +142,160 @@ public final class LineOperations {
     }
 
     static final void sortLines(final JTextComponent textComponent, final boolean descending) {
-        if (!textComponent.isEditable() || !textComponent.getCaret().isSelectionVisible()) {
+        if (!textComponent.isEditable() || !Carets.hasSelection(Carets.getRegions(textComponent))) {
             beep();
             return;
         }
-        runModificationTaskOnDocument(textComponent.getDocument(), new SortLinesTask(textComponent, descending, matchCase));
+        Document doc = textComponent.getDocument();
+        SortOptions options = LineOperationOptions.forDocument(doc).getSortOptions(descending);
+        long[] size = measureSelectedLines(textComponent);
+        AdmissionControl.Strategy strategy = AdmissionControl.forSort(size[0], size[1], AdmissionControl.getFreeHeap());
+        if (strategy == AdmissionControl.Strategy.OFF_HEAP && !isLatin1SelectedLines(textComponent)) {
+            strategy = AdmissionControl.forSort(size[0], size[1], AdmissionControl.getFreeHeap(), false);
+        }
+        if (strategy == AdmissionControl.Strategy.REFUSE) {
+            refuse(AdmissionControl.estimateSort(size[0], size[1], AdmissionControl.Strategy.EXTERNAL));
+            return;
+        }
+        OperationProfile profile = OperationProfile.start(options.isRemoveDuplicates() ? "dedupe" : "sort", // NOI18N
+                options + ", strategy=" + strategy); // NOI18N
+        // undo by permuting the lines back rather than keeping their text
+        boolean permutationUndo = (strategy == AdmissionControl.Strategy.IN_MEMORY
+                || strategy == AdmissionControl.Strategy.OFF_HEAP) && doc instanceof BaseDocument;
+        runModificationTaskOnDocument(doc, new SortLinesTask(textComponent, options, strategy, permutationUndo, profile));
+        profile.commit();
+    }
+
+    /**
+     * Replace the selected lines with each distinct line prefixed with how
+     * often it occurs and a tab, the most frequent first, see
+     * {@link LineSorter#countByFrequency(LineArena, boolean)}.
+     */
+    static final void countLinesByFrequency(final JTextComponent textComponent) {
+        if (!textComponent.isEditable() || !Carets.hasSelection(Carets.getRegions(textComponent))) {
+            beep();
+            return;
+        }
+        final Document doc = textComponent.getDocument();
+        final boolean matchCase = LineOperationOptions.forDocument(doc).isMatchCase();
+        long[] size = measureSelectedLines(textComponent);
+        // the lines are held like by an in memory sort
+        long needed = AdmissionControl.estimateSort(size[0], size[1], AdmissionControl.Strategy.IN_MEMORY);
+        if (needed > AdmissionControl.getFreeHeap()) {
+            refuse(needed);
+            return;
+        }
+        final OperationProfile profile = OperationProfile.start("count", "matchCase=" + matchCase); // NOI18N
+        runModificationTaskOnDocument(doc, new Runnable() {
+            @Override
+            public void run() {
+                profile.phase(OperationProfile.Phase.LOCK_WAIT);
+                boolean counted = false;
+                // the ranges are ordered back to front, replacing one does
+                // not shift the others
+                for (OffsetRange lineRange : Carets.getLineRanges(doc, Carets.getRegions(textComponent), true)) {
+                    if (lineRange.getStart() == -1 || lineRange.getEnd() == -1) {
+                        continue;
+                    }
+                    try {
+                        LineArena lines = SortLinesTask.readLines(doc, lineRange);
+                        OffsetRange removalLineRange = SortLinesTask.getRemovalLineRange(doc, lineRange);
+                        profile.add(lines.size(), removalLineRange.getLength());
+                        profile.phase(OperationProfile.Phase.EXTRACT);
+                        String countedText = SortLinesTask.joinLines(LineSorter.countByFrequency(lines, matchCase));
+                        profile.phase(OperationProfile.Phase.COMPUTE);
+                        doc.remove(removalLineRange.getStart(), removalLineRange.getLength());
+                        doc.insertString(removalLineRange.getStart(), countedText, null);
+                        profile.phase(OperationProfile.Phase.APPLY);
+                        counted = true;
+                    } catch (BadLocationException ex) {
+                        profile.error();
+                        ErrorManager.getDefault().notify(ex);
+                        return;
+                    }
+                }
+                if (!counted) {
+                    beep();
+                }
+            }
+        });
+        profile.commit();
+    }
+
+    /**
+     * The number of lines with a selection and their length including the
+     * line terminators, to estimate the memory an operation on them needs.
+     */
+    private static long[] measureSelectedLines(final JTextComponent textComponent) {
+        final Document doc = textComponent.getDocument();
+        final long[] size = new long[2];
+        doc.render(new Runnable() {
+            @Override
+            public void run() {
+                Element rootElement = doc.getDefaultRootElement();
+                for (OffsetRange lineRange : Carets.getLineRanges(doc, Carets.getRegions(textComponent), true)) {
+                    if (lineRange.getStart() == -1 || lineRange.getEnd() == -1) {
+                        continue;
+                    }
+                    size[0] += lineRange.getLength() + 1;
+                    size[1] += rootElement.getElement(lineRange.getEnd()).getEndOffset()
+                            - rootElement.getElement(lineRange.getStart()).getStartOffset();
+                }
+            }
+        });
+        return size;
+    }
+
+    /**
+     * Whether the text of the lines with a selection is Latin-1, so it can
+     * be sorted {@link AdmissionControl.Strategy#OFF_HEAP}.
+     */
+    private static boolean isLatin1SelectedLines(final JTextComponent textComponent) {
+        final Document doc = textComponent.getDocument();
+        final boolean[] latin1 = {true};
+        doc.render(new Runnable() {
+            @Override
+            public void run() {
+                Element rootElement = doc.getDefaultRootElement();
+                Segment segment = new Segment();
+                segment.setPartialReturn(true);
+                for (OffsetRange lineRange : Carets.getLineRanges(doc, Carets.getRegions(textComponent), true)) {
+                    if (lineRange.getStart() == -1 || lineRange.getEnd() == -1) {
+                        continue;
+                    }
+                    int offset = rootElement.getElement(lineRange.getStart()).getStartOffset();
+                    int end = rootElement.getElement(lineRange.getEnd()).getEndOffset();
+                    try {
+                        while (offset < end) {
+                            doc.getText(offset, end - offset, segment);
+                            for (int i = segment.offset, segmentEnd = segment.offset + segment.count; i < segmentEnd; i++) {
+                                if (segment.array[i] > 0xff) {
+                                    latin1[0] = false;
+                                    return;
+                                }
+                            }
+                            offset += segment.count;
+                        }
+                    } catch (BadLocationException ex) {
+                        ErrorManager.getDefault().notify(ex);
+                        latin1[0] = false;
+                        return;
+                    }
+                }
+            }
+        });
+        return latin1[0];
+    }
+
+    /**
+     * Tell the user the operation was not started for lack of memory.
+     *
+     * @param needed the bytes the operation needs at least
+     */
+    private static void refuse(long needed) {
+        StatusDisplayer.getDefault().setStatusText(NbBundle.getMessage(LineOperations.class, "MSG_NotEnoughMemory", // NOI18N
+                needed >> 20, AdmissionControl.getFreeHeap() >> 20));
+        beep();
     }
 
     private static void runModificationTaskOnDocument(Document doc, Runnable runnable) {
@@ -132,6 +306,13 @@ public final class LineOperations {
         }
     }
 
+    /**
+     * A snapshot of the global options.
+     */
+    static LineOperationOptions getOptions() {
+        return new LineOperationOptions(matchCase, removeDuplicateLines, parallelFilter, filterShards, zapDistance);
+    }
+
     /**
      * Getter for property removeDuplicateLines.
      *
@@ -168,26 +349,119 @@ public final class LineOperations {
         LineOperations.matchCase = matchCase;
     }
 
+    /**
+     * Return whether {@link #filter(JTextComponent)} splits the selected lines
+     * into shards which are filtered by concurrently running processes.
+     *
+     * @return
+     */
+    static boolean isParallelFilter() {
+        return parallelFilter;
+    }
+
+    /**
+     * Set whether {@link #filter(JTextComponent)} splits the selected lines
+     * into shards which are filtered by concurrently running processes. Only
+     * enable it for commands which process each line independently.
+     *
+     * @param parallelFilter
+     */
+    static void setParallelFilter(boolean parallelFilter) {
+        LineOperations.parallelFilter = parallelFilter;
+    }
+
+    /**
+     * Getter for property filterShards.
+     *
+     * @return Value of property filterShards.
+     */
+    static int getFilterShards() {
+        return filterShards;
+    }
+
+    /**
+     * Setter for property filterShards. Defaults to the number of available
+     * processors.
+     *
+     * @param filterShards New value of property filterShards.
+     */
+    static void setFilterShards(int filterShards) {
+        LineOperations.filterShards = Math.max(1, filterShards);
+    }
+
+    /**
+     * Getter for property zapDistance.
+     *
+     * @return Value of property zapDistance.
+     */
+    static int getZapDistance() {
+        return zapDistance;
+    }
+
+    /**
+     * Setter for property zapDistance, the maximum number of chars the char
+     * operations scan when searching across lines.
+     *
+     * @param zapDistance New value of property zapDistance.
+     */
+    static void setZapDistance(int zapDistance) {
+        LineOperations.zapDistance = Math.max(0, zapDistance);
+    }
+
+    /**
+     * The table for the token groups configured in the module preferences.
+     */
+    static TokenCycleTable getTokenCycleTable() {
+        return TokenCycleTable.get(getTokenCycles());
+    }
+
+    static String getTokenCycles() {
+        return getPreferences().get(PREF_TOKEN_CYCLES, DEFAULT_TOKEN_CYCLES);
+    }
+
+    static void setTokenCycles(String tokenCycles) {
+        getPreferences().put(PREF_TOKEN_CYCLES, tokenCycles);
+    }
+
+    /**
+     * Return whether the char zaps on long lines use a
+     * {@link CharOccurrenceIndex}, which makes repeated zaps on the same line
+     * faster but keeps a few bytes per char of the line in memory.
+     *
+     * @return
+     */
+    static boolean isIndexLongLines() {
+        return getPreferences().getBoolean(PREF_INDEX_LONG_LINES, false);
+    }
+
+    static void setIndexLongLines(boolean indexLongLines) {
+        getPreferences().putBoolean(PREF_INDEX_LONG_LINES, indexLongLines);
+    }
+
+    private static Preferences getPreferences() {
+        return NbPreferences.forModule(LineOperations.class);
+    }
+
     static void filter(final JTextComponent textComponent) {
-        if (textComponent.isEditable() && textComponent.getCaret().isSelectionVisible()) {
+        if (textComponent.isEditable() && Carets.hasSelection(Carets.getRegions(textComponent))) {
+            long[] size = measureSelectedLines(textComponent);
+            if (AdmissionControl.forFilter(size[0], size[1], AdmissionControl.getFreeHeap()) == AdmissionControl.Strategy.REFUSE) {
+                refuse(AdmissionControl.estimateFilter(size[0], size[1]));
+                return;
+            }
+            final LineOperationOptions options = LineOperationOptions.forDocument(textComponent.getDocument());
+            final OperationProfile profile = OperationProfile.start("filter", // NOI18N
+                    "shards=" + options.getEffectiveFilterShards()); // NOI18N
 
             Runnable runnable = new Runnable() {
                 @Override
                 public void run() {
+                    profile.phase(OperationProfile.Phase.LOCK_WAIT);
                     Document doc = textComponent.getDocument();
-                    Caret caret = textComponent.getCaret();
-                    Element rootElement = doc.getDefaultRootElement();
+                    List<OffsetRange> lineRanges = Carets.getLineRanges(doc, Carets.getRegions(textComponent), true);
 
-                    int selStart = caret.getDot();
-                    int selEnd = caret.getMark();
-                    int start = Math.min(selStart, selEnd);
-                    int end = Math.max(selStart, selEnd) - 1;
-
-                    int zeroBaseStartLineNumber = rootElement.getElementIndex(start);
-                    int zeroBaseEndLineNumber = rootElement.getElementIndex(end);
-
-                    if (zeroBaseStartLineNumber == -1 || zeroBaseEndLineNumber == -1) {
-                        // could not get line number or same line
+                    if (lineRanges.isEmpty()) {
+                        // could not get line number
                         beep();
                         return;
                     }
@@ -196,51 +470,51 @@ public final class LineOperations {
                             "Filter command", NotifyDescriptor.OK_CANCEL_OPTION, NotifyDescriptor.PLAIN_MESSAGE);
 
                     if (DialogDisplayer.getDefault().notify(filterCommand) == NotifyDescriptor.OK_OPTION) {
-                        int startOffset = rootElement.getElement(zeroBaseStartLineNumber).getStartOffset();
-                        int endOffset = rootElement.getElement(zeroBaseEndLineNumber).getEndOffset();
-
+                        profile.skip();
+                        FilterStatistics statistics = new FilterStatistics();
                         try {
-                            int numberOfLines = zeroBaseEndLineNumber - zeroBaseStartLineNumber + 1;
-                            String[] linesText = new String[numberOfLines];
-                            for (int i = 0; i < numberOfLines; i++) {
-                                // get line text
-                                Element lineElement = rootElement.getElement(zeroBaseStartLineNumber + i);
-                                int lineStartOffset = lineElement.getStartOffset();
-                                int lineEndOffset = lineElement.getEndOffset();
-
-                                linesText[i] = doc.getText(lineStartOffset, (lineEndOffset - lineStartOffset - 1));
-                            }
-
-                            try {
-                                FilterProcess filterProcess = new FilterProcess(filterCommand.getInputText().split(" "));
+                            // the ranges are ordered back to front, replacing
+                            // one does not shift the others
+                            for (OffsetRange lineRange : lineRanges) {
+                                Element rootElement = doc.getDefaultRootElement();
+                                int startOffset = rootElement.getElement(lineRange.getStart()).getStartOffset();
+                                int endOffset = rootElement.getElement(lineRange.getEnd()).getEndOffset();
+
+                                String[] linesText = getLinesText(doc, lineRange);
+                                profile.add(linesText.length, endOffset - startOffset);
+                                profile.phase(OperationProfile.Phase.EXTRACT);
+                                linesText = ShardedFilter.filter(filterCommand.getInputText().split(" "),
+                                        linesText, options.getEffectiveFilterShards(), statistics);
+                                profile.phase(OperationProfile.Phase.COMPUTE);
+                                if (linesText == null) {
+                                    profile.error();
+                                    break;
+                                }
 
-                                try (PrintWriter in = filterProcess.exec()) {
-                                    for (String line : linesText) {
-                                        in.println(line);
-                                    }
+                                long applyStart = System.nanoTime();
+                                StringBuilder sb = new StringBuilder();
+                                for (String line : linesText) {
+                                    sb.append(line).append("\n"); // NOI18N
                                 }
-                                if (filterProcess.waitFor() == 0) {
-                                    linesText = filterProcess.getStdOutOutput();
-                                    if (linesText != null) {
-                                        StringBuilder sb = new StringBuilder();
-                                        for (String line : linesText) {
-                                            sb.append(line).append("\n"); // NOI18N
-                                        }
 
-                                        // remove the lines
-                                        doc.remove(startOffset, Math.min(doc.getLength(), endOffset) - startOffset);
+                                // remove the lines
+                                doc.remove(startOffset, Math.min(doc.getLength(), endOffset) - startOffset);
 
-                                        // insert the sorted text
-                                        doc.insertString(startOffset, sb.toString(), null);
-                                    }
-                                }
-                                filterProcess.destroy();
-                            } catch (IOException fe) {
-                                ErrorManager.getDefault().notify(ErrorManager.USER, fe);
+                                // insert the sorted text
+                                doc.insertString(startOffset, sb.toString(), null);
+                                statistics.addApplyNanos(System.nanoTime() - applyStart);
+                                profile.phase(OperationProfile.Phase.APPLY);
                             }
+                        } catch (IOException fe) {
+                            profile.error();
+                            ErrorManager.getDefault().notify(ErrorManager.USER, fe);
                         } catch (BadLocationException ex) {
+                            profile.error();
                             ErrorManager.getDefault().notify(ex);
+                        } finally {
+                            statistics.commit(filterCommand.getInputText());
                         }
+                        profile.commit();
                     }
                 }
             };
@@ -251,25 +525,22 @@ public final class LineOperations {
     }
 
     static void filterOutput(final JTextComponent textComponent) {
-        if (textComponent.isEditable() && textComponent.getCaret().isSelectionVisible()) {
+        if (textComponent.isEditable() && Carets.hasSelection(Carets.getRegions(textComponent))) {
+            long[] size = measureSelectedLines(textComponent);
+            if (AdmissionControl.forFilter(size[0], size[1], AdmissionControl.getFreeHeap()) == AdmissionControl.Strategy.REFUSE) {
+                refuse(AdmissionControl.estimateFilter(size[0], size[1]));
+                return;
+            }
+            final OperationProfile profile = OperationProfile.start("filterOutput", null); // NOI18N
             Runnable runnable = new Runnable() {
                 @Override
                 public void run() {
+                    profile.phase(OperationProfile.Phase.LOCK_WAIT);
                     Document doc = textComponent.getDocument();
-                    Caret caret = textComponent.getCaret();
-
-                    Element rootElement = doc.getDefaultRootElement();
+                    List<OffsetRange> lineRanges = Carets.getLineRanges(doc, Carets.getRegions(textComponent), true);
 
-                    int selStart = caret.getDot();
-                    int selEnd = caret.getMark();
-                    int start = Math.min(selStart, selEnd);
-                    int end = Math.max(selStart, selEnd) - 1;
-
-                    int zeroBaseStartLineNumber = rootElement.getElementIndex(start);
-                    int zeroBaseEndLineNumber = rootElement.getElementIndex(end);
-
-                    if (zeroBaseStartLineNumber == -1 || zeroBaseEndLineNumber == -1) {
-                        // could not get line number or same line
+                    if (lineRanges.isEmpty()) {
+                        // could not get line number
                         beep();
                         return;
                     }
@@ -278,30 +549,33 @@ public final class LineOperations {
                             "Filter command", NotifyDescriptor.OK_CANCEL_OPTION, NotifyDescriptor.PLAIN_MESSAGE);
 
                     if (DialogDisplayer.getDefault().notify(filterCommand) == NotifyDescriptor.OK_OPTION) {
-                        int startOffset = rootElement.getElement(zeroBaseStartLineNumber).getStartOffset();
-                        int endOffset = rootElement.getElement(zeroBaseEndLineNumber).getEndOffset();
-
+                        profile.skip();
                         try {
-                            int numberOfLines = zeroBaseEndLineNumber - zeroBaseStartLineNumber + 1;
-                            String[] linesText = new String[numberOfLines];
-                            for (int i = 0; i < numberOfLines; i++) {
-                                // get line text
-                                Element lineElement = rootElement.getElement(zeroBaseStartLineNumber + i);
-                                int lineStartOffset = lineElement.getStartOffset();
-                                int lineEndOffset = lineElement.getEndOffset();
-
-                                linesText[i] = doc.getText(lineStartOffset, (lineEndOffset - lineStartOffset - 1));
+                            // all selected lines in document order are the
+                            // input of one filter process
+                            List<String> lines = new ArrayList<>();
+                            for (int i = lineRanges.size() - 1; i >= 0; i--) {
+                                lines.addAll(Arrays.asList(getLinesText(doc, lineRanges.get(i))));
+                            }
+                            String[] linesText = lines.toArray(new String[0]);
+                            int chars = 0;
+                            for (String line : linesText) {
+                                chars += line.length() + 1;
                             }
+                            profile.add(linesText.length, chars);
+                            profile.phase(OperationProfile.Phase.EXTRACT);
 
+                            FilterProcess filterProcess = new FilterProcess(filterCommand.getInputText().split(" "));
                             try {
-                                FilterProcess filterProcess = new FilterProcess(filterCommand.getInputText().split(" "));
-
                                 try (PrintWriter in = filterProcess.exec()) {
                                     for (String line : linesText) {
                                         in.println(line);
                                     }
                                 }
-                                if (filterProcess.waitFor() == 0) {
+                                int exitCode = filterProcess.waitFor();
+                                profile.phase(OperationProfile.Phase.COMPUTE);
+                                if (exitCode == 0) {
+                                    long applyStart = System.nanoTime();
                                     InputOutput io = IOProvider.getDefault().getIO(filterCommand.getInputText(), true);
                                     linesText = filterProcess.getStdOutOutput();
                                     if (linesText != null) {
@@ -319,14 +593,21 @@ public final class LineOperations {
                                             }
                                         }
                                     }
+                                    filterProcess.getStatistics().addApplyNanos(System.nanoTime() - applyStart);
+                                    profile.phase(OperationProfile.Phase.APPLY);
                                 }
-                                filterProcess.destroy();
                             } catch (IOException fe) {
+                                profile.error();
                                 ErrorManager.getDefault().notify(ErrorManager.USER, fe);
+                            } finally {
+                                filterProcess.getStatistics().commit(filterCommand.getInputText());
+                                filterProcess.destroy();
                             }
                         } catch (BadLocationException ex) {
+                            profile.error();
                             ErrorManager.getDefault().notify(ex);
                         }
+                        profile.commit();
                     }
                 }
             };
@@ -337,333 +618,508 @@ public final class LineOperations {
         }
     }
 
+    /**
+     * The text of the lines without their line terminators.
+     */
+    private static String[] getLinesText(Document doc, OffsetRange lineRange) throws BadLocationException {
+        Element rootElement = doc.getDefaultRootElement();
+        int numberOfLines = lineRange.getEnd() - lineRange.getStart() + 1;
+        String[] linesText = new String[numberOfLines];
+        for (int i = 0; i < numberOfLines; i++) {
+            // get line text
+            Element lineElement = rootElement.getElement(lineRange.getStart() + i);
+            int lineStartOffset = lineElement.getStartOffset();
+            int lineEndOffset = lineElement.getEndOffset();
+
+            linesText[i] = doc.getText(lineStartOffset, (lineEndOffset - lineStartOffset - 1));
+        }
+        return linesText;
+    }
+
     static final void fromChar(final JTextComponent textComponent, final char fromChar, final boolean matchCase, final int times) {
-        if (textComponent.isEditable()) {
-            Runnable runnable = new Runnable() {
-                @Override
-                public void run() {
-                    Document doc = textComponent.getDocument();
-                    Element rootElement = doc.getDefaultRootElement();
+        fromChar(textComponent, fromChar, matchCase, times, false);
+    }
 
-                    Caret caret = textComponent.getCaret();
-                    int start = textComponent.getCaretPosition();
+    static final void fromChar(final JTextComponent textComponent, final char fromChar, final boolean matchCase, final int times,
+            final boolean acrossLines) {
+        zapChar(textComponent, fromChar, matchCase, times, acrossLines, false, 0);
+    }
 
-                    int zeroBaseStartLineNumber = rootElement.getElementIndex(start);
+    static final void afterChar(final JTextComponent textComponent, final char afterChar, final boolean matchCase, final int times) {
+        afterChar(textComponent, afterChar, matchCase, times, false);
+    }
 
-                    if (zeroBaseStartLineNumber == -1) {
-                        // could not get line number
-                        beep();
-                        return;
-                    } else {
-                        int startLineStartOffset = rootElement.getElement(zeroBaseStartLineNumber).getStartOffset();
+    static final void afterChar(final JTextComponent textComponent, final char afterChar, final boolean matchCase, final int times,
+            final boolean acrossLines) {
+        zapChar(textComponent, afterChar, matchCase, times, acrossLines, false, 1);
+    }
+
+    static final void uptoChar(final JTextComponent textComponent, final char uptoChar, final boolean matchCase, final int times) {
+        uptoChar(textComponent, uptoChar, matchCase, times, false);
+    }
+
+    static final void uptoChar(final JTextComponent textComponent, final char uptoChar, final boolean matchCase, final int times,
+            final boolean acrossLines) {
+        zapChar(textComponent, uptoChar, matchCase, times, acrossLines, true, 0);
+    }
+
+    static final void toChar(final JTextComponent textComponent, final char toChar, final boolean matchCase, final int times) {
+        toChar(textComponent, toChar, matchCase, times, false);
+    }
+
+    static final void toChar(final JTextComponent textComponent, final char toChar, final boolean matchCase, final int times,
+            final boolean acrossLines) {
+        zapChar(textComponent, toChar, matchCase, times, acrossLines, true, 1);
+    }
+
+    /**
+     * Move the dot of each caret to the <code>times</code>-th occurrence of the
+     * char on its line. The carets are only moved, so the document is scanned
+     * under its read lock and all carets are moved in one transaction. Long lines are looked up in the document's
+     * {@link CharOccurrenceIndex} if {@link #isIndexLongLines()}. A scan
+     * across lines takes the read lock for each {@link #ZAP_CHUNK} chars, so
+     * a long scan does not block the writers.
+     *
+     * @param acrossLines do not stop at the line boundary but scan up to
+     * {@link LineOperationOptions#getZapDistance()} chars of the document
+     * @param forward scan from the caret to the end of the line, otherwise
+     * from the caret to the start of the line
+     * @param adjust added to the offset of the found char
+     */
+    private static void zapChar(final JTextComponent textComponent, final char zapChar, final boolean matchCase,
+            final int times, final boolean acrossLines, final boolean forward, final int adjust) {
+        if (textComponent.isEditable()) {
+            final Document doc = textComponent.getDocument();
+            final int distance = LineOperationOptions.forDocument(doc).getZapDistance();
+            final boolean indexLongLines = isIndexLongLines();
+            final List<Carets.Region> regions = Carets.getRegions(textComponent);
+            final int[] dots = new int[regions.size()];
+            // the options are put together only if the profile is recorded,
+            // not on each keystroke
+            final OperationProfile profile = OperationProfile.start("zapChar", new Object() { // NOI18N
+                @Override
+                public String toString() {
+                    return "matchCase=" + matchCase // NOI18N
+                            + ", times=" + times + ", forward=" + forward // NOI18N
+                            + ", distance=" + (acrossLines ? distance : -1); // NOI18N
+                }
+            });
+            profile.add(dots.length, 0);
+            if (acrossLines) {
+                // the waits for the read lock of the chunks are part of
+                // the compute phase
+                try {
+                    for (int i = 0; i < dots.length; i++) {
+                        int offset = findZapOffset(doc, regions.get(i).getDot(), zapChar, matchCase, times,
+                                distance, forward);
+                        dots[i] = offset == -1 ? -1 : offset + adjust;
+                    }
+                } catch (BadLocationException ex) {
+                    Arrays.fill(dots, -1);
+                    ErrorManager.getDefault().notify(ErrorManager.INFORMATIONAL, ex);
+                }
+                profile.phase(OperationProfile.Phase.COMPUTE);
+            } else {
+                doc.render(new Runnable() {
+                    @Override
+                    public void run() {
+                        profile.phase(OperationProfile.Phase.LOCK_WAIT);
                         try {
-                            String text = doc.getText(startLineStartOffset, start - startLineStartOffset);
-
-                            char lowercaseFromChar = Character.toLowerCase(fromChar);
-                            int textLength = text.length();
-                            int timesCounter = times;
-                            for (int i = textLength - 1; i >= 0; i--) {
-                                char charAt = text.charAt(i);
-                                if (charAt == fromChar || (!matchCase && Character.toLowerCase(charAt) == lowercaseFromChar)) {
-                                    timesCounter--;
-                                    if (timesCounter == 0) {
-                                        caret.moveDot(startLineStartOffset + i);
-                                        break;
-                                    }
-                                }
+                            for (int i = 0; i < dots.length; i++) {
+                                int offset = findZapOffset(doc, regions.get(i).getDot(), zapChar, matchCase, times,
+                                        forward, indexLongLines);
+                                dots[i] = offset == -1 ? -1 : offset + adjust;
                             }
                         } catch (BadLocationException ex) {
+                            Arrays.fill(dots, -1);
                             ErrorManager.getDefault().notify(ErrorManager.INFORMATIONAL, ex);
                         }
+                        profile.phase(OperationProfile.Phase.COMPUTE);
                     }
-                }
-            };
-            runModificationTaskOnDocument(textComponent.getDocument(), runnable);
+                });
+            }
+            Carets.moveDots(textComponent, regions, dots);
+            profile.phase(OperationProfile.Phase.APPLY);
+            profile.commit();
         } else {
             beep();
         }
     }
 
-    static final void afterChar(final JTextComponent textComponent, final char afterChar, final boolean matchCase, final int times) {
-        if (textComponent.isEditable()) {
-            Runnable runnable = new Runnable() {
+    /**
+     * Scan across lines, up to <code>distance</code> chars from the start.
+     * Each chunk is scanned under its own read lock, the document may change
+     * in between.
+     */
+    private static int findZapOffset(final Document doc, final int start, final char zapChar, final boolean matchCase,
+            int times, final int distance, final boolean forward) throws BadLocationException {
+        // the occurrences still to find, the result and the exception
+        final int[] count = {times};
+        final int[] found = {-1};
+        final BadLocationException[] failure = new BadLocationException[1];
+        for (int scanned = 0; found[0] == -1 && scanned < distance; scanned += ZAP_CHUNK) {
+            final int chunkScanned = scanned;
+            final boolean[] atEnd = new boolean[1];
+            doc.render(new Runnable() {
                 @Override
                 public void run() {
-                    Document doc = textComponent.getDocument();
-                    Element rootElement = doc.getDefaultRootElement();
-
-                    Caret caret = textComponent.getCaret();
-                    int start = textComponent.getCaretPosition();
-
-                    int zeroBaseStartLineNumber = rootElement.getElementIndex(start);
-
-                    if (zeroBaseStartLineNumber == -1) {
-                        // could not get line number
-                        beep();
-                        return;
-                    } else {
-                        int startLineStartOffset = rootElement.getElement(zeroBaseStartLineNumber).getStartOffset();
-                        try {
-                            String text = doc.getText(startLineStartOffset, start - startLineStartOffset);
-
-                            char lowercaseAfterChar = Character.toLowerCase(afterChar);
-                            int textLength = text.length();
-                            int countTimes = times;
-                            for (int i = textLength - 1; i >= 0; i--) {
-                                char charAt = text.charAt(i);
-                                if (charAt == afterChar || (!matchCase && Character.toLowerCase(charAt) == lowercaseAfterChar)) {
-                                    countTimes--;
-                                    if (countTimes == 0) {
-                                        caret.moveDot(startLineStartOffset + i + 1);
-                                        break;
-                                    }
-                                }
-                            }
-                        } catch (BadLocationException ex) {
-                            ErrorManager.getDefault().notify(ErrorManager.INFORMATIONAL, ex);
+                    try {
+                        if (forward) {
+                            int limit = (int) Math.min((long) start + 1 + distance, doc.getLength());
+                            int from = start + 1 + chunkScanned;
+                            int to = Math.min(limit, from + Math.min(ZAP_CHUNK, distance - chunkScanned));
+                            found[0] = CharScanner.forward(doc, from, to, zapChar, matchCase, count);
+                            atEnd[0] = to >= limit;
+                        } else {
+                            int limit = Math.max(0, start - distance);
+                            int to = Math.min(start, doc.getLength()) - chunkScanned;
+                            int from = Math.max(limit, to - Math.min(ZAP_CHUNK, distance - chunkScanned));
+                            found[0] = from < to ? CharScanner.backward(doc, from, to, zapChar, matchCase, count) : -1;
+                            atEnd[0] = from <= limit;
                         }
+                    } catch (BadLocationException ex) {
+                        failure[0] = ex;
                     }
                 }
-            };
-            runModificationTaskOnDocument(textComponent.getDocument(), runnable);
-        } else {
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            if (atEnd[0]) {
+                break;
+            }
+        }
+        return found[0];
+    }
+
+    /**
+     * Scan the line of the start.
+     *
+     * @param indexLongLines look up long lines in the {@link CharOccurrenceIndex}
+     */
+    private static int findZapOffset(Document doc, int start, char zapChar, boolean matchCase, int times,
+            boolean forward, boolean indexLongLines) throws BadLocationException {
+        Element rootElement = doc.getDefaultRootElement();
+        int zeroBaseStartLineNumber = rootElement.getElementIndex(start);
+        if (zeroBaseStartLineNumber == -1) {
+            // could not get line number
             beep();
+            return -1;
+        }
+
+        Element lineElement = rootElement.getElement(zeroBaseStartLineNumber);
+        if (indexLongLines && lineElement.getEndOffset() - lineElement.getStartOffset() >= CharOccurrenceIndex.MIN_LINE_LENGTH) {
+            if (forward) {
+                return CharOccurrenceIndex.get(doc).find(lineElement, start + 1,
+                        lineElement.getEndOffset(), zapChar, matchCase, times, true);
+            } else {
+                return CharOccurrenceIndex.get(doc).find(lineElement, lineElement.getStartOffset(),
+                        start, zapChar, matchCase, times, false);
+            }
+        } else if (forward) {
+            return CharScanner.forward(doc, start + 1, lineElement.getEndOffset(),
+                    zapChar, matchCase, times);
+        } else {
+            return CharScanner.backward(doc, lineElement.getStartOffset(), start,
+                    zapChar, matchCase, times);
         }
     }
 
-    static final void uptoChar(final JTextComponent textComponent, final char uptoChar, final boolean matchCase, final int times) {
+    /**
+     * Move the dot of each caret to the <code>times</code>-th match of the
+     * string or regular expression. Works like the char zaps, except that the
+     * match has to lie completely on the scanned side of the caret. A scan
+     * across lines takes the read lock for each window of {@link #ZAP_CHUNK}
+     * chars, so a long scan does not block the writers.
+     *
+     * @param forward scan from the caret to the end of the line, otherwise
+     * from the caret to the start of the line
+     * @param toEnd move the dot to the end of the match instead of its start
+     */
+    static final void zapText(final JTextComponent textComponent, final TextSearch search, final int times,
+            final boolean acrossLines, final boolean forward, final boolean toEnd) {
         if (textComponent.isEditable()) {
-            Runnable runnable = new Runnable() {
+            final Document doc = textComponent.getDocument();
+            final int distance = LineOperationOptions.forDocument(doc).getZapDistance();
+            final List<Carets.Region> regions = Carets.getRegions(textComponent);
+            final int[] dots = new int[regions.size()];
+            final OperationProfile profile = OperationProfile.start("zapText", new Object() { // NOI18N
                 @Override
-                public void run() {
-                    Document doc = textComponent.getDocument();
-                    Element rootElement = doc.getDefaultRootElement();
-
-                    Caret caret = textComponent.getCaret();
-                    int start = textComponent.getCaretPosition();
-
-                    int zeroBaseStartLineNumber = rootElement.getElementIndex(start);
-
-                    if (zeroBaseStartLineNumber == -1) {
-                        // could not get line number
-                        beep();
-                        return;
+                public String toString() {
+                    return "times=" + times // NOI18N
+                            + ", forward=" + forward + ", toEnd=" + toEnd // NOI18N
+                            + ", distance=" + (acrossLines ? distance : -1); // NOI18N
+                }
+            });
+            profile.add(dots.length, 0);
+            if (acrossLines) {
+                // the waits for the read lock of the windows are part of
+                // the compute phase
+                int[] match = new int[2];
+                for (int i = 0; i < dots.length; i++) {
+                    if (findZapMatch(doc, search, regions.get(i).getDot(), times, distance, forward, match)) {
+                        dots[i] = toEnd ? match[1] : match[0];
                     } else {
-                        int startLineEndOffset = rootElement.getElement(zeroBaseStartLineNumber).getEndOffset();
-                        try {
-                            String text = doc.getText(start + 1, startLineEndOffset - start - 1);
-
-                            char lowercaseUptoChar = Character.toLowerCase(uptoChar);
-                            int textLength = text.length();
-                            int countTimes = times;
-
-                            for (int i = 0; i < textLength; i++) {
-                                char charAt = text.charAt(i);
-                                if (charAt == uptoChar || (!matchCase && Character.toLowerCase(charAt) == lowercaseUptoChar)) {
-                                    countTimes--;
-                                    if (countTimes == 0) {
-                                        caret.moveDot(start + 1 + i);
-                                        break;
-                                    }
-                                }
+                        dots[i] = -1;
+                    }
+                }
+                profile.phase(OperationProfile.Phase.COMPUTE);
+            } else {
+                doc.render(new Runnable() {
+                    @Override
+                    public void run() {
+                        profile.phase(OperationProfile.Phase.LOCK_WAIT);
+                        DocumentCharSequence text = new DocumentCharSequence(doc);
+                        Element rootElement = doc.getDefaultRootElement();
+                        int[] match = new int[2];
+                        for (int i = 0; i < dots.length; i++) {
+                            int start = regions.get(i).getDot();
+                            Element lineElement = rootElement.getElement(rootElement.getElementIndex(start));
+                            int from = forward ? start + 1 : lineElement.getStartOffset();
+                            int to = forward ? lineElement.getEndOffset() - 1 : start;
+                            if (from < to && search.find(text, from, to, times, forward, match)) {
+                                dots[i] = toEnd ? match[1] : match[0];
+                            } else {
+                                dots[i] = -1;
                             }
-                        } catch (BadLocationException ex) {
-                            ErrorManager.getDefault().notify(ErrorManager.INFORMATIONAL, ex);
                         }
+                        profile.phase(OperationProfile.Phase.COMPUTE);
                     }
-                }
-            };
-            runModificationTaskOnDocument(textComponent.getDocument(), runnable);
+                });
+            }
+            Carets.moveDots(textComponent, regions, dots);
+            profile.phase(OperationProfile.Phase.APPLY);
+            profile.commit();
         } else {
             beep();
         }
     }
 
-    static final void toChar(final JTextComponent textComponent, final char toChar, final boolean matchCase, final int times) {
-        if (textComponent.isEditable()) {
-            Runnable runnable = new Runnable() {
+    /**
+     * Search across lines, up to <code>distance</code> chars from the start.
+     * Each window of at least {@link #ZAP_CHUNK} chars is searched under its
+     * own read lock, the document may change in between. Consecutive windows
+     * overlap by one char less than {@link TextSearch#getMaxMatchLength()}, so
+     * a match crossing the edge of a window is found in the next one. A match
+     * touching the inner edge of a window might continue beyond it, it is
+     * searched again in the next window.
+     *
+     * @param match receives the start and end of the match
+     * @return whether the <code>times</code>-th match was found
+     */
+    private static boolean findZapMatch(final Document doc, final TextSearch search, final int start, int times,
+            final int distance, final boolean forward, final int[] match) {
+        if (times <= 0) {
+            return false;
+        }
+        final int overlap = search.getMaxMatchLength() - 1;
+        // a window is larger than twice the overlap, so each window advances
+        final int window = Math.max(ZAP_CHUNK, 2 * overlap + 2);
+        // the matches still to find and the offset to continue at
+        final int[] count = {times};
+        final int[] position = {forward ? start + 1 : start};
+        final boolean[] found = new boolean[1];
+        final boolean[] atEnd = new boolean[1];
+        while (!found[0] && !atEnd[0]) {
+            doc.render(new Runnable() {
                 @Override
                 public void run() {
-                    Document doc = textComponent.getDocument();
-
-                    Element rootElement = doc.getDefaultRootElement();
-
-                    Caret caret = textComponent.getCaret();
-                    int start = textComponent.getCaretPosition();
-
-                    int zeroBaseStartLineNumber = rootElement.getElementIndex(start);
-
-                    if (zeroBaseStartLineNumber == -1) {
-                        // could not get line number
-                        beep();
-                        return;
+                    DocumentCharSequence text = new DocumentCharSequence(doc);
+                    if (forward) {
+                        int limit = (int) Math.min((long) start + 1 + distance, doc.getLength());
+                        int from = position[0];
+                        int to = (int) Math.min((long) from + window, limit);
+                        while (position[0] < to && search.find(text, position[0], to, 1, true, match)) {
+                            if (match[1] == to && to < limit && match[0] > from) {
+                                position[0] = match[0];
+                                return;
+                            }
+                            position[0] = match[1];
+                            if (--count[0] == 0) {
+                                found[0] = true;
+                                return;
+                            }
+                        }
+                        atEnd[0] = to >= limit;
+                        position[0] = Math.max(position[0], to - overlap);
                     } else {
-                        int startLineEndOffset = rootElement.getElement(zeroBaseStartLineNumber).getEndOffset();
-                        try {
-                            String text = doc.getText(start + 1, startLineEndOffset - start - 1);
-
-                            char lowercaseToChar = Character.toLowerCase(toChar);
-                            int textLength = text.length();
-                            int countTimes = times;
-                            for (int i = 0; i < textLength; i++) {
-                                char charAt = text.charAt(i);
-                                if (charAt == toChar || (!matchCase && Character.toLowerCase(charAt) == lowercaseToChar)) {
-                                    countTimes--;
-                                    if (countTimes == 0) {
-                                        caret.moveDot(start + 1 + i + 1);
-                                        break;
-                                    }
-                                }
+                        int limit = Math.max(0, start - distance);
+                        int to = Math.min(position[0], doc.getLength());
+                        int from = Math.max(limit, to - window);
+                        position[0] = to;
+                        while (from < position[0] && search.find(text, from, position[0], 1, false, match)) {
+                            if (match[0] == from && from > limit && match[1] < to) {
+                                position[0] = match[1];
+                                return;
+                            }
+                            position[0] = match[0];
+                            if (--count[0] == 0) {
+                                found[0] = true;
+                                return;
                             }
-                        } catch (BadLocationException ex) {
-                            ErrorManager.getDefault().notify(ErrorManager.INFORMATIONAL, ex);
                         }
+                        atEnd[0] = from <= limit;
+                        position[0] = Math.min(position[0], from + overlap);
                     }
                 }
-            };
-            runModificationTaskOnDocument(textComponent.getDocument(), runnable);
-        } else {
-            beep();
+            });
         }
+        return found[0];
     }
 
     static final void cycle(final JTextComponent textComponent, final String cycleString) {
+        transform(textComponent, CycleTable.get(cycleString), false,
+                OperationProfile.start("cycle", "cycleChars=" + cycleString)); // NOI18N
+    }
+
+    /**
+     * Cycle the tokens of the {@link TokenCycleTable} in the selection of
+     * each caret or the line it is on.
+     */
+    static final void cycleTokens(final JTextComponent textComponent, final TokenCycleTable table) {
+        if (table.isEmpty()) {
+            beep();
+            return;
+        }
+        transform(textComponent, table, true, OperationProfile.start("cycleTokens", null)); // NOI18N
+    }
+
+    /**
+     * Transform the selection of each caret or the line it is on. Only the
+     * ranges the transform replaces are changed in the document.
+     *
+     * @param beepIfUnchanged beep if the transform did not replace anything
+     * @param profile committed once the transform ran
+     */
+    private static void transform(final JTextComponent textComponent, final TextTransform transform,
+            final boolean beepIfUnchanged, final OperationProfile profile) {
         if (textComponent.isEditable()) {
+            final List<Carets.Region> regions = Carets.getRegions(textComponent);
             Runnable runnable = new Runnable() {
                 @Override
                 public void run() {
+                    profile.phase(OperationProfile.Phase.LOCK_WAIT);
                     Document doc = textComponent.getDocument();
 
-                    Element rootElement = doc.getDefaultRootElement();
-
-                    Caret caret = textComponent.getCaret();
-                    boolean selection = false;
-                    boolean backwardSelection = false;
-                    int start = textComponent.getCaretPosition();
-                    int end = start;
-
-                    // check if there is a selection
-                    if (caret.isSelectionVisible()) {
-                        int selStart = caret.getDot();
-                        int selEnd = caret.getMark();
-                        start = Math.min(selStart, selEnd);
-                        end = Math.max(selStart, selEnd);
-                        selection = true;
-                        backwardSelection = (selStart >= selEnd);
-                    }
-
-                    int zeroBaseStartLineNumber = rootElement.getElementIndex(start);
-                    int zeroBaseEndLineNumber = rootElement.getElementIndex(end);
-
-                    if (zeroBaseStartLineNumber == -1) {
-                        // could not get line number
-                        beep();
+                    int[] dots = new int[regions.size()];
+                    int[] marks = new int[regions.size()];
+                    List<OffsetRange> ranges = getCycleRanges(doc, regions, dots, marks);
+                    if (ranges == null) {
                         return;
-                    } else {
-                        try {
-                            // get line text
-                            Element startLineElement = rootElement.getElement(zeroBaseStartLineNumber);
-                            int startLineStartOffset = startLineElement.getStartOffset();
-
-                            Element endLineElement = rootElement.getElement(zeroBaseEndLineNumber);
-                            int endLineEndOffset = endLineElement.getEndOffset();
+                    }
 
-                            if (!selection) {
-                                start = startLineStartOffset;
-                                end = endLineEndOffset;
+                    try {
+                        // the transform reads the text through the sequence,
+                        // extracting is part of computing the edits
+                        DocumentCharSequence text = new DocumentCharSequence(doc);
+                        Element rootElement = doc.getDefaultRootElement();
+                        List<EditScript> scripts = new ArrayList<>(ranges.size());
+                        for (OffsetRange range : mergeRanges(ranges)) {
+                            scripts.add(transform.edits(text, range.getStart(), range.getEnd()));
+                            profile.add(rootElement.getElementIndex(range.getEnd())
+                                    - rootElement.getElementIndex(range.getStart()) + 1, range.getLength());
+                        }
+                        EditScript edits = EditScript.concat(scripts);
+                        profile.phase(OperationProfile.Phase.COMPUTE);
+                        if (edits.isEmpty()) {
+                            if (beepIfUnchanged) {
+                                beep();
                             }
+                            return;
+                        }
 
-                            String linesText = doc.getText(start, (end - start));
-
-                            linesText = cycle(linesText, cycleString);
-
-                            // replace the line or selection
-                            doc.remove(start, Math.min(doc.getLength(), end) - start);
-
-                            // insert the text before the previous line
-                            doc.insertString(start, linesText, null);
+                        // the carets get the offsets they have after the
+                        // replacements before them
+                        for (int i = 0; i < dots.length; i++) {
+                            dots[i] = edits.shift(dots[i]);
+                            marks[i] = edits.shift(marks[i]);
+                        }
 
-                            if (selection) {
-                                if (backwardSelection) {
-                                    caret.setDot(start);
-                                    caret.moveDot(end);
-                                } else {
-                                    caret.setDot(end);
-                                    caret.moveDot(start);
-                                }
-                            } else {
-                                // set caret position
-                                textComponent.setCaretPosition(start);
-                            }
-                        } catch (BadLocationException ex) {
-                            ErrorManager.getDefault().notify(ex);
+                        // replace back to front so the offsets of the
+                        // remaining edits stay valid
+                        for (int i = edits.size() - 1; i >= 0; i--) {
+                            doc.remove(edits.getStart(i), edits.getEnd(i) - edits.getStart(i));
+                            doc.insertString(edits.getStart(i), edits.getReplacement(i), null);
                         }
+
+                        // a caret right at a replaced range would have moved
+                        // with the insert
+                        Carets.setDotsAndMarks(textComponent, regions, dots, marks);
+                        profile.phase(OperationProfile.Phase.APPLY);
+                    } catch (BadLocationException ex) {
+                        profile.error();
+                        ErrorManager.getDefault().notify(ex);
                     }
                 }
             };
             runModificationTaskOnDocument(textComponent.getDocument(), runnable);
+            profile.commit();
         } else {
             beep();
         }
     }
 
-    public static String cycle(String target, String cycleChars) {
-        if (target == null) {
-            return null;
-        }
-
-        if (cycleChars == null) {
-            return target;
-        }
-
-        Set<Character> cycleSet = getCharSet(cycleChars);
-        if (cycleSet.size() <= 1) {
-            return target;
+    /**
+     * The selection of each caret or the line it is on, and the dot and mark
+     * each caret gets after cycling.
+     *
+     * @return null if the line of a caret could not be found
+     */
+    private static List<OffsetRange> getCycleRanges(Document doc, List<Carets.Region> regions, int[] dots, int[] marks) {
+        Element rootElement = doc.getDefaultRootElement();
+        List<OffsetRange> ranges = new ArrayList<>(regions.size());
+        for (int i = 0; i < dots.length; i++) {
+            Carets.Region region = regions.get(i);
+            if (region.isSelection()) {
+                ranges.add(new OffsetRange(region.getStart(), region.getEnd()));
+                dots[i] = region.getDot();
+                marks[i] = region.getMark();
+            } else {
+                int zeroBaseLineNumber = rootElement.getElementIndex(region.getDot());
+                if (zeroBaseLineNumber == -1) {
+                    // could not get line number
+                    beep();
+                    return null;
+                }
+                Element lineElement = rootElement.getElement(zeroBaseLineNumber);
+                ranges.add(new OffsetRange(lineElement.getStartOffset(),
+                        Math.min(doc.getLength(), lineElement.getEndOffset())));
+                // set caret position
+                dots[i] = lineElement.getStartOffset();
+                marks[i] = lineElement.getStartOffset();
+            }
         }
+        return ranges;
+    }
 
-        Set<Character> set = getCharSet(target);
-        set.retainAll(cycleSet);
-        switch (set.size()) {
-            case 0:
-                return target;
-            case 1:
-                char from = set.iterator().next();
-                List<Character> cycleList = new ArrayList<>(cycleSet);
-                char to = cycleList.get((cycleList.indexOf(from) + 1) % cycleList.size());
-                return target.replace(from, to);
-            default:
-                char first = set.iterator().next();
-                cycleSet.remove(first);
-                Iterator<Character> cycleSetIterator = cycleSet.iterator();
-                while (cycleSetIterator.hasNext()) {
-                    target = target.replace(cycleSetIterator.next(), first);
-                }
-                return target;
+    /**
+     * Sort the ranges and merge the overlapping ones.
+     */
+    private static List<OffsetRange> mergeRanges(List<OffsetRange> ranges) {
+        List<OffsetRange> sorted = new ArrayList<>(ranges);
+        Collections.sort(sorted);
+        List<OffsetRange> merged = new ArrayList<>(sorted.size());
+        for (OffsetRange range : sorted) {
+            int last = merged.size() - 1;
+            if (last >= 0 && merged.get(last).getEnd() > range.getStart()) {
+                merged.set(last, new OffsetRange(merged.get(last).getStart(), Math.max(merged.get(last).getEnd(), range.getEnd())));
+            } else {
+                merged.add(range);
+            }
         }
+        return merged;
     }
 
-    private static Set<Character> getCharSet(String target) {
+    public static String cycle(String target, String cycleChars) {
         if (target == null) {
             return null;
         }
 
-        if (target.length() == 0) {
-            return new LinkedHashSet<>();
-        }
-
-        if (target.length() == 1) {
-            return new LinkedHashSet<>(Collections.<Character>singleton(target.charAt(0)));
-        }
-
-        char[] targetarray = target.toCharArray();
-        Character[] targetArray = new Character[targetarray.length];
-        for (int i = 0; i < targetarray.length; i++) {
-            targetArray[i] = targetarray[i];
+        if (cycleChars == null) {
+            return target;
         }
 
-        Set<Character> targetCharsSet = new LinkedHashSet<>(Arrays.<Character>asList(targetArray));
-
-        return targetCharsSet;
+        return CycleTable.get(cycleChars).cycle(target);
     }
 
     static void beep() {
@@ -671,57 +1127,136 @@ public final class LineOperations {
     }
 
     //~ inner classes
-    private static class SortLinesTask implements Runnable {
+    static class SortLinesTask implements Runnable {
 
         private final JTextComponent textComponent;
-        private final boolean descending;
-        private final boolean matchCase;
-
-        public SortLinesTask(JTextComponent textComponent, boolean descending, boolean matchCase) {
+        private final SortOptions options;
+        private final AdmissionControl.Strategy strategy;
+        private final boolean permutationUndo;
+        private final OperationProfile profile;
+
+        /**
+         * @param strategy how to sort, {@link AdmissionControl.Strategy#REFUSE}
+         * is not supported
+         * @param permutationUndo record a {@link SortLinesEdit} for each
+         * sorted range instead of the edits of the document, the document
+         * has to be a {@link BaseDocument}; only used when sorting
+         * {@link AdmissionControl.Strategy#IN_MEMORY} or
+         * {@link AdmissionControl.Strategy#OFF_HEAP}
+         * @param profile receives the line counts and phase timings
+         */
+        public SortLinesTask(JTextComponent textComponent, SortOptions options, AdmissionControl.Strategy strategy,
+                boolean permutationUndo, OperationProfile profile) {
             this.textComponent = textComponent;
-            this.descending = descending;
-            this.matchCase = matchCase;
+            this.options = options;
+            this.strategy = strategy;
+            this.permutationUndo = permutationUndo;
+            this.profile = profile;
         }
 
         @Override
         public void run() {
-            OffsetRange zeroBaselineNumberRange = getZeroBaseLineNumberRange();
-            if (!canRun(zeroBaselineNumberRange)) {
-                // could not get line number or same line
-                beep();
-                return;
-            }
+            profile.phase(OperationProfile.Phase.LOCK_WAIT);
             Document doc = textComponent.getDocument();
-            try {
-                String[] lines = getLines(doc, zeroBaselineNumberRange);
-                if (isRemoveDuplicateLines()) {
-                    lines = removeDuplicateLines(lines);
+            boolean sorted = false;
+            // the ranges are ordered back to front, sorting one does not
+            // shift the others
+            for (OffsetRange zeroBaselineNumberRange : Carets.getLineRanges(doc, Carets.getRegions(textComponent), true)) {
+                if (!canRun(zeroBaselineNumberRange)) {
+                    // same line
+                    continue;
                 }
-                sortLines(lines, getComparator(descending, matchCase));
-                OffsetRange removalLineRange = getRemovalLineRange(doc, zeroBaselineNumberRange);
-                doc.remove(removalLineRange.getStart(), removalLineRange.getLength());
-                doc.insertString(removalLineRange.getStart(), joinLines(lines), null);
-            } catch (BadLocationException ex) {
-                ErrorManager.getDefault().notify(ex);
+                try {
+                    OffsetRange removalLineRange = getRemovalLineRange(doc, zeroBaselineNumberRange);
+                    OffsetRange textRange = getTextRange(doc, zeroBaselineNumberRange);
+                    int lineCount = zeroBaselineNumberRange.getLength() + 1;
+                    AdmissionControl.Strategy rangeStrategy = strategy;
+                    String sortedText = null;
+                    SortLinesEdit edit = null;
+                    if (rangeStrategy == AdmissionControl.Strategy.IN_MEMORY
+                            || rangeStrategy == AdmissionControl.Strategy.OFF_HEAP) {
+                        LineArena lines = readLines(doc, textRange, rangeStrategy == AdmissionControl.Strategy.OFF_HEAP
+                                ? LineArena.Builder.mapped(textRange.getLength(), lineCount)
+                                : new LineArena.Builder(textRange.getLength(), lineCount));
+                        LinePermutation permutation = null;
+                        if (lines != null) {
+                            profile.add(lines.size(), removalLineRange.getLength());
+                            profile.phase(OperationProfile.Phase.EXTRACT);
+                            permutation = LineSorter.permutation(lines, options);
+                            if (permutation == null) {
+                                // not Latin-1
+                                permutation = LineSorter.permutation(lines.toStrings(), options);
+                            }
+                            sortedText = lines.join(permutation.getOrder());
+                        } else if (permutationUndo) {
+                            // not Latin-1 after all, the edit still needs
+                            // the permutation
+                            String[] strings = getLines(doc, zeroBaselineNumberRange);
+                            profile.add(strings.length, removalLineRange.getLength());
+                            profile.phase(OperationProfile.Phase.EXTRACT);
+                            permutation = LineSorter.permutation(strings, options);
+                            sortedText = joinLines(permutation.apply(strings));
+                        } else {
+                            rangeStrategy = getStringStrategy(lineCount, textRange.getLength());
+                        }
+                        if (permutationUndo) {
+                            // the last line may end past the end of the document
+                            edit = new SortLinesEdit((BaseDocument) doc, removalLineRange.getStart(),
+                                    removalLineRange.getLength(), sortedText.length(),
+                                    doc.getText(removalLineRange.getEnd(), textRange.getEnd() - removalLineRange.getEnd()),
+                                    permutation);
+                        }
+                    }
+                    if (sortedText == null) {
+                        if (rangeStrategy == AdmissionControl.Strategy.EXTERNAL) {
+                            ExternalSorter.TextSorter text = new ExternalSorter.TextSorter(options);
+                            readText(doc, textRange, text);
+                            profile.add(lineCount, removalLineRange.getLength());
+                            profile.phase(OperationProfile.Phase.EXTRACT);
+                            sortedText = text.sort();
+                        } else {
+                            String[] lines = getLines(doc, zeroBaselineNumberRange);
+                            profile.add(lines.length, removalLineRange.getLength());
+                            profile.phase(OperationProfile.Phase.EXTRACT);
+                            sortedText = joinLines(LineSorter.sortCompact(lines, options));
+                        }
+                    }
+                    profile.phase(OperationProfile.Phase.COMPUTE);
+                    if (edit != null) {
+                        edit.apply(sortedText);
+                    } else {
+                        doc.remove(removalLineRange.getStart(), removalLineRange.getLength());
+                        doc.insertString(removalLineRange.getStart(), sortedText, null);
+                    }
+                    profile.phase(OperationProfile.Phase.APPLY);
+                    sorted = true;
+                } catch (BadLocationException ex) {
+                    profile.error();
+                    ErrorManager.getDefault().notify(ex);
+                    return;
+                } catch (IOException ex) {
+                    profile.error();
+                    ErrorManager.getDefault().notify(ErrorManager.USER, ex);
+                    return;
+                }
+            }
+            if (!sorted) {
+                // could not get line number or same line
+                beep();
             }
         }
 
-        private OffsetRange getZeroBaseLineNumberRange() {
-            Document doc = textComponent.getDocument();
-            Caret caret = textComponent.getCaret();
-            Element rootElement = doc.getDefaultRootElement();
-
-            int selStart = caret.getDot();
-            int selEnd = caret.getMark();
-            int start = Math.min(selStart, selEnd);
-            int end = Math.max(selStart, selEnd) - 1;
-
-            int zeroBaseStartLineNumber = rootElement.getElementIndex(start);
-            int zeroBaseEndLineNumber = rootElement.getElementIndex(end);
-            return new OffsetRange(zeroBaseStartLineNumber, zeroBaseEndLineNumber);
+        /**
+         * {@link AdmissionControl.Strategy#COMPACT} if sorting the strings
+         * of the lines fits in the free heap, otherwise
+         * {@link AdmissionControl.Strategy#EXTERNAL}.
+         */
+        private static AdmissionControl.Strategy getStringStrategy(long lines, long chars) {
+            return AdmissionControl.estimateSort(lines, chars, AdmissionControl.Strategy.COMPACT) <= AdmissionControl.getFreeHeap()
+                    ? AdmissionControl.Strategy.COMPACT : AdmissionControl.Strategy.EXTERNAL;
         }
 
-        private String[] getLines(Document doc, OffsetRange lineRange) throws BadLocationException {
+        static String[] getLines(Document doc, OffsetRange lineRange) throws BadLocationException {
             int numberOfLines = lineRange.getLength() + 1;
             int zeroBaseStartLineNumber = lineRange.getStart();
             String[] lines = new String[numberOfLines];
@@ -735,22 +1270,54 @@ public final class LineOperations {
             return lines;
         }
 
-        private String[] removeDuplicateLines(String[] lines) {
-            SortedSet<String> uniqifySet = new TreeSet<>(matchCase ? null : String.CASE_INSENSITIVE_ORDER);
-            uniqifySet.addAll(Arrays.asList(lines));
-            lines = uniqifySet.toArray(new String[0]);
-            return lines;
+        /**
+         * Read the lines like {@link #getLines(Document, OffsetRange)}, but
+         * into a {@link LineArena} instead of a string per line.
+         */
+        static LineArena readLines(Document doc, OffsetRange lineRange) throws BadLocationException {
+            OffsetRange textRange = getTextRange(doc, lineRange);
+            return readLines(doc, textRange, new LineArena.Builder(textRange.getLength(), lineRange.getLength() + 1));
         }
 
-        private void sortLines(String[] linesText, Comparator<String> comparator) {
-            if (comparator == null) {
-                Arrays.sort(linesText);
-            } else {
-                Arrays.sort(linesText, comparator);
+        /**
+         * @return null if the text does not fit into the builder
+         */
+        private static LineArena readLines(Document doc, OffsetRange textRange, LineArena.Builder lines)
+                throws BadLocationException {
+            Segment segment = new Segment();
+            segment.setPartialReturn(true);
+            int offset = textRange.getStart();
+            while (offset < textRange.getEnd()) {
+                doc.getText(offset, textRange.getEnd() - offset, segment);
+                lines.append(segment.array, segment.offset, segment.count);
+                offset += segment.count;
+            }
+            return lines.build();
+        }
+
+        private static void readText(Document doc, OffsetRange textRange, ExternalSorter.TextSorter text)
+                throws BadLocationException, IOException {
+            Segment segment = new Segment();
+            segment.setPartialReturn(true);
+            int offset = textRange.getStart();
+            while (offset < textRange.getEnd()) {
+                doc.getText(offset, textRange.getEnd() - offset, segment);
+                text.append(segment.array, segment.offset, segment.count);
+                offset += segment.count;
             }
         }
 
-        private OffsetRange getRemovalLineRange(Document doc, OffsetRange lineNumberRange) {
+        /**
+         * The text of the lines, including the line terminator of the last
+         * line past the end of the document.
+         */
+        private static OffsetRange getTextRange(Document doc, OffsetRange lineRange) {
+            Element rootElement = doc.getDefaultRootElement();
+            return new OffsetRange(rootElement.getElement(lineRange.getStart()).getStartOffset(),
+                    rootElement.getElement(lineRange.getEnd()).getEndOffset());
+        }
+
+        static OffsetRange getRemovalLineRange(Document doc, OffsetRange lineNumberRange) {
             Element rootElement = doc.getDefaultRootElement();
             int startOffset = rootElement.getElement(lineNumberRange.getStart()).getStartOffset();
             int endOffset = rootElement.getElement(lineNumberRange.getEnd()).getEndOffset();
@@ -758,7 +1325,7 @@ public final class LineOperations {
             return new OffsetRange(startOffset, endOffset);
         }
 
-        private String joinLines(String[] lines) {
+        static String joinLines(String[] lines) {
             StringBuilder sb = new StringBuilder();
             for (String line : lines) {
                 sb.append(line);
@@ -771,24 +1338,5 @@ public final class LineOperations {
                     && zeroBaselineNumberRange.getEnd() != -1
                     && zeroBaselineNumberRange.getLength() != 0;
         }
-
-        @CheckForNull
-        private static Comparator<String> getComparator(boolean descending, boolean matchCase) {
-            Comparator<String> comparator = null;
-            if (descending) {
-                if (matchCase) {
-                    comparator = REVERSE_STRING_COMPARATOR;
-                } else {
-                    comparator = REVERSE_STRING_COMPARATOR_CASE_INSENSITIVE;
-                }
-            } else {
-                if (matchCase) {
-                    comparator = STRING_COMPARATOR;
-                } else {
-                    comparator = STRING_COMPARATOR_CASE_INSENSITIVE;
-                }
-            }
-            return comparator;
-        }
     }
 }
@@ -0,0 +1,133 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.actions;
+
+import java.awt.GridLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import javax.swing.JCheckBox;
+import javax.swing.JPanel;
+import org.netbeans.api.queries.FileEncodingQuery;
+import org.netbeans.modules.linetools.engine.FileSorter;
+import org.netbeans.modules.linetools.engine.SortOptions;
+import org.openide.DialogDescriptor;
+import org.openide.DialogDisplayer;
+import org.openide.NotifyDescriptor;
+import org.openide.awt.ActionID;
+import org.openide.awt.ActionReference;
+import org.openide.awt.ActionReferences;
+import org.openide.awt.ActionRegistration;
+import org.openide.awt.StatusDisplayer;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.loaders.DataObject;
+import org.openide.util.NbBundle;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Sorts the lines of the selected files on disk, see {@link FileSorter}.
+ */
+@ActionID(
+        category = "Editor",
+        id = "org.netbeans.modules.linetools.actions.SortFile"
+)
+@ActionRegistration(
+        displayName = "#CTL_SortFile"
+)
+@ActionReferences({
+    @ActionReference(path = "Loaders/text/plain/Actions", position = 1350),
+    @ActionReference(path = "Loaders/content/unknown/Actions", position = 1350)
+})
+public final class SortFile implements ActionListener {
+
+    private static final RequestProcessor RP = new RequestProcessor(SortFile.class);
+
+    private final List<DataObject> context;
+
+    public SortFile(List<DataObject> context) {
+        this.context = context;
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent ev) {
+        final JCheckBox descending = new JCheckBox(NbBundle.getMessage(SortFile.class, "CTL_Descending"), false); // NOI18N
+        final JCheckBox matchCase = new JCheckBox(NbBundle.getMessage(SortFile.class, "CTL_MatchCase"), // NOI18N
+                LineOperations.isMatchCase());
+        final JCheckBox removeDuplicates = new JCheckBox(NbBundle.getMessage(SortFile.class, "CTL_RemoveDuplicateLines"), // NOI18N
+                LineOperations.isRemoveDuplicateLines());
+        JPanel panel = new JPanel(new GridLayout(0, 1));
+        panel.add(descending);
+        panel.add(matchCase);
+        panel.add(removeDuplicates);
+        DialogDescriptor descriptor = new DialogDescriptor(panel, NbBundle.getMessage(SortFile.class, "TITLE_SortFile")); // NOI18N
+        if (DialogDisplayer.getDefault().notify(descriptor) != DialogDescriptor.OK_OPTION) {
+            return;
+        }
+        for (final DataObject dataObject : context) {
+            if (dataObject.isModified()) {
+                DialogDisplayer.getDefault().notify(new NotifyDescriptor.Message(
+                        NbBundle.getMessage(SortFile.class, "MSG_SaveFirst", dataObject.getName()), // NOI18N
+                        NotifyDescriptor.WARNING_MESSAGE));
+                continue;
+            }
+            final FileObject fileObject = dataObject.getPrimaryFile();
+            final File file = FileUtil.toFile(fileObject);
+            if (file == null) {
+                continue;
+            }
+            RP.post(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        FileSorter.sort(file, FileEncodingQuery.getEncoding(fileObject),
+                                new SortOptions(descending.isSelected(), matchCase.isSelected(),
+                                        removeDuplicates.isSelected()));
+                        fileObject.refresh();
+                        StatusDisplayer.getDefault().setStatusText(
+                                NbBundle.getMessage(SortFile.class, "MSG_SortedFile", file.getName())); // NOI18N
+                    } catch (IOException ex) {
+                        DialogDisplayer.getDefault().notify(new NotifyDescriptor.Message(ex.getMessage(),
+                                NotifyDescriptor.ERROR_MESSAGE));
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.actions;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.text.BadLocationException;
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoableEdit;
+import org.netbeans.editor.BaseDocument;
+import org.netbeans.modules.linetools.engine.LinePermutation;
+import org.openide.ErrorManager;
+import org.openide.util.NbBundle;
+
+/**
+ * Undoes a sort of lines by permuting the lines in the document back. Only
+ * the {@link LinePermutation} is kept, not the text that was removed and
+ * inserted, so the memory it takes grows with the number of lines and not
+ * with the size of the text.
+ * <p>
+ * The edit is added to the atomic edit of the document with
+ * {@link BaseDocument#addUndoableEdit(UndoableEdit)} and takes the place of
+ * the edits of the replacement, see {@link #apply(String)}.
+ */
+final class SortLinesEdit extends AbstractUndoableEdit {
+
+    private static final long serialVersionUID = 1L;
+
+    private final BaseDocument doc;
+    private final int start;
+    // the length of the lines before and after sorting
+    private final int length;
+    private final int sortedLength;
+    // the end of the last line past the end of the document
+    private final String tail;
+    private final LinePermutation permutation;
+    // whether the edits of the document are dropped
+    private boolean absorbing;
+
+    SortLinesEdit(BaseDocument doc, int start, int length, int sortedLength, String tail, LinePermutation permutation) {
+        this.doc = doc;
+        this.start = start;
+        this.length = length;
+        this.sortedLength = sortedLength;
+        this.tail = tail;
+        this.permutation = permutation;
+    }
+
+    /**
+     * Replace the lines with the sorted text. The edit is added to the
+     * atomic edit of the document and absorbs the edits of the replacement,
+     * it has to be called under the atomic lock of the document.
+     */
+    void apply(String sortedText) throws BadLocationException {
+        doc.addUndoableEdit(this);
+        absorbing = true;
+        try {
+            replace(length, sortedText);
+        } finally {
+            absorbing = false;
+        }
+    }
+
+    @Override
+    public void undo() throws CannotUndoException {
+        super.undo();
+        try {
+            String[] sorted = split(doc.getText(start, sortedLength), permutation.getSortedSize());
+            String text = join(permutation.restore(sorted));
+            replaceUnrecorded(sortedLength, text.substring(0, text.length() - tail.length()));
+        } catch (BadLocationException | IllegalArgumentException ex) {
+            throw (CannotUndoException) new CannotUndoException().initCause(ex);
+        }
+    }
+
+    @Override
+    public void redo() throws CannotRedoException {
+        super.redo();
+        try {
+            String[] lines = split(doc.getText(start, length) + tail, permutation.getSize());
+            replaceUnrecorded(length, join(permutation.apply(lines)));
+        } catch (BadLocationException | IllegalArgumentException ex) {
+            throw (CannotRedoException) new CannotRedoException().initCause(ex);
+        }
+    }
+
+    @Override
+    public boolean addEdit(UndoableEdit anEdit) {
+        return absorbing;
+    }
+
+    @Override
+    public String getPresentationName() {
+        return NbBundle.getMessage(SortLinesEdit.class, "CTL_SortLinesEdit"); // NOI18N
+    }
+
+    /**
+     * Replace the text without recording it, this edit stands for the
+     * replacement. The edits of the document are absorbed by a
+     * {@link DroppedEdits} and discarded with
+     * {@link BaseDocument#breakAtomicLock()}, which undoes only the
+     * {@link DroppedEdits} and so leaves the text replaced. Like the undo of
+     * the document's own edits, this records nothing. It runs under the
+     * atomic lock that the undo of the document's atomic edit holds, which
+     * has no other edits to discard.
+     */
+    private void replaceUnrecorded(final int removeLength, final String text) {
+        doc.runAtomic(new Runnable() {
+            @Override
+            public void run() {
+                doc.addUndoableEdit(new DroppedEdits());
+                try {
+                    replace(removeLength, text);
+                } catch (BadLocationException ex) {
+                    ErrorManager.getDefault().notify(ex);
+                } finally {
+                    doc.breakAtomicLock();
+                }
+            }
+        });
+    }
+
+    private void replace(int removeLength, String text) throws BadLocationException {
+        doc.remove(start, removeLength);
+        doc.insertString(start, text, null);
+        // typing after the replacement must not merge with its edits
+        doc.resetUndoMerge();
+    }
+
+    /**
+     * The lines of the text, each with its line separator.
+     */
+    private static String[] split(String text, int expectedLines) {
+        List<String> lines = new ArrayList<>(expectedLines);
+        int lineStart = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lines.add(text.substring(lineStart, i + 1));
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < text.length()) {
+            lines.add(text.substring(lineStart));
+        }
+        if (lines.size() != expectedLines) {
+            throw new IllegalArgumentException("Expected " + expectedLines + " lines, found " + lines.size()); // NOI18N
+        }
+        return lines.toArray(new String[lines.size()]);
+    }
+
+    private static String join(String[] lines) {
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            sb.append(line);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Absorbs the edits of the document that follow it in an atomic edit
+     * and drops them.
+     */
+    private static final class DroppedEdits extends AbstractUndoableEdit {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public boolean addEdit(UndoableEdit anEdit) {
+            return true;
+        }
+
+        @Override
+        public boolean isSignificant() {
+            return false;
+        }
+    }
+}
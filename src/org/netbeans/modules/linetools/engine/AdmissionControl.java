@@ -0,0 +1,182 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.engine;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+
+/**
+ * Picks how to run an operation before it touches the document, from the
+ * heap the operation is expected to need and the heap that is free. The
+ * estimates are rough upper bounds for a 64 bit VM, they only have to tell a
+ * selection that fits easily from one that would run out of memory halfway.
+ */
+public final class AdmissionControl {
+
+    public enum Strategy {
+        /** Everything in memory, the fastest. */
+        IN_MEMORY,
+        /**
+         * The text in a memory mapped file, only an offset and the sort
+         * indices per line and the sorted text in memory. Only for Latin-1
+         * text, other text is sorted {@link #COMPACT} or {@link #EXTERNAL}.
+         */
+        OFF_HEAP,
+        /** In memory, trading speed for a smaller footprint. */
+        COMPACT,
+        /** Spill the runs of the sort to temporary files. */
+        EXTERNAL,
+        /** Not enough memory for any of them. */
+        REFUSE
+    }
+
+    // a String with its array and the reference to it
+    private static final long LINE_BYTES = 56;
+    // chars of strings, documents and builders are counted as UTF-16
+    private static final long CHAR_BYTES = 2;
+    // a RuleBasedCollationKey holds about three chars per char of its line
+    private static final long KEY_LINE_BYTES = 64;
+    private static final long KEY_CHAR_BYTES = 3 * CHAR_BYTES;
+    // the offset of a line in a LineArena
+    private static final long ARENA_LINE_BYTES = 4;
+    // the index arrays of the merge sort and the undo permutation
+    private static final long PERMUTATION_LINE_BYTES = 32;
+    // the hash table of the duplicates and the order of the sorted lines
+    private static final long ORDER_LINE_BYTES = 16;
+    // an ExternalSorter line: its bytes in the chunk, its decoded text
+    private static final long EXTERNAL_LINE_BYTES = 32 + LINE_BYTES;
+    private static final long EXTERNAL_CHAR_BYTES = 1 + CHAR_BYTES;
+
+    private AdmissionControl() {
+    }
+
+    /**
+     * The heap that can be allocated without a full collection, at least.
+     */
+    public static long getFreeHeap() {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long max = heap.getMax() == -1 ? heap.getCommitted() : heap.getMax();
+        return Math.max(0, max - heap.getUsed());
+    }
+
+    /**
+     * The heap a sort of the lines needs with the strategy.
+     *
+     * @param chars the chars of the lines including their line terminators
+     */
+    public static long estimateSort(long lines, long chars, Strategy strategy) {
+        // the document grows by the inserted text before the removed text
+        // is gone, the undo edit of the document keeps the removed text
+        long document = 2 * chars * CHAR_BYTES;
+        switch (strategy) {
+            case IN_MEMORY:
+                // text that is not Latin-1: the arena of chars, the lines,
+                // their keys, the permutation, the joined text and the
+                // inserted text; Latin-1 text needs neither the lines nor
+                // their keys. The undo edit keeps the permutation instead of
+                // the text
+                return lines * (ARENA_LINE_BYTES + LINE_BYTES + KEY_LINE_BYTES + PERMUTATION_LINE_BYTES)
+                        + chars * (CHAR_BYTES + CHAR_BYTES + KEY_CHAR_BYTES + CHAR_BYTES + CHAR_BYTES);
+            case OFF_HEAP:
+                // the text is mapped; the joined bytes, the sorted text and
+                // the inserted text. The undo edit keeps the permutation
+                // instead of the text
+                return lines * (ARENA_LINE_BYTES + PERMUTATION_LINE_BYTES + ORDER_LINE_BYTES)
+                        + chars * (1 + CHAR_BYTES + CHAR_BYTES);
+            case COMPACT:
+                // no keys, the undo edit of the document keeps the text
+                return lines * (LINE_BYTES + 8) + chars * (CHAR_BYTES + 3 * CHAR_BYTES) + document;
+            case EXTERNAL: {
+                // one run in memory, the sorted text is read back into a
+                // buffer and a string
+                long run = Math.min(lines * EXTERNAL_LINE_BYTES + chars * EXTERNAL_CHAR_BYTES,
+                        ExternalSorter.getRunBytes());
+                return run + chars * (CHAR_BYTES + CHAR_BYTES) + document;
+            }
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * The heap a filter of the lines needs. The output of the filter is
+     * assumed to be as large as its input.
+     */
+    public static long estimateFilter(long lines, long chars) {
+        // the input lines, the output lines, the joined output and the
+        // document with its undo edit
+        return 2 * (lines * LINE_BYTES + chars * CHAR_BYTES) + 3 * chars * CHAR_BYTES
+                + 2 * chars * CHAR_BYTES;
+    }
+
+    /**
+     * The fastest strategy for the sort of Latin-1 text that fits in the
+     * free heap. {@link Strategy#OFF_HEAP} needs less heap than
+     * {@link Strategy#COMPACT}, which is left for the text it cannot hold.
+     */
+    public static Strategy forSort(long lines, long chars, long freeHeap) {
+        return forSort(lines, chars, freeHeap, true);
+    }
+
+    /**
+     * The fastest strategy for the sort that fits in the free heap.
+     *
+     * @param latin1 false if the text is not Latin-1, which
+     * {@link Strategy#OFF_HEAP} cannot hold
+     */
+    public static Strategy forSort(long lines, long chars, long freeHeap, boolean latin1) {
+        for (Strategy strategy : new Strategy[]{Strategy.IN_MEMORY, Strategy.OFF_HEAP, Strategy.COMPACT,
+            Strategy.EXTERNAL}) {
+            if (strategy == Strategy.OFF_HEAP && !latin1) {
+                continue;
+            }
+            if (estimateSort(lines, chars, strategy) <= freeHeap) {
+                return strategy;
+            }
+        }
+        return Strategy.REFUSE;
+    }
+
+    /**
+     * {@link Strategy#IN_MEMORY} if the filter fits in the free heap,
+     * otherwise {@link Strategy#REFUSE}. A filter collects the output of its
+     * process in memory, it has no other strategy.
+     */
+    public static Strategy forFilter(long lines, long chars, long freeHeap) {
+        return estimateFilter(lines, chars) <= freeHeap ? Strategy.IN_MEMORY : Strategy.REFUSE;
+    }
+}
@@ -1,5 +1,6 @@
-package org.netbeans.modules.linetools.actions;
+package org.netbeans.modules.linetools.engine;
 
+import java.text.CollationKey;
 import java.text.Collator;
 import java.util.Comparator;
 import java.util.Locale;
@@ -12,6 +13,9 @@ public class CustomComparator implements Comparator<String>
 {
     private boolean caseSensetive;
     private Locale locale;
+    // getInstance() clones on every call, so the collator is kept; its
+    // compare() is synchronized, concurrent sorts need their own comparator
+    private final Collator collator = Collator.getInstance(Locale.ENGLISH);
 
     public CustomComparator()
     {
@@ -40,8 +44,6 @@ public class CustomComparator implements Comparator<String>
     @Override
     public int compare(String o1, String o2)
     {
-        Collator collator = Collator.getInstance(Locale.ENGLISH);
-
         if (this.caseSensetive)
         {
             return collator.compare(o1, o2);
@@ -51,4 +53,15 @@ public class CustomComparator implements Comparator<String>
             return collator.compare(o1.toLowerCase(), o2.toLowerCase());
         }
     }
+
+    /**
+     * The key of the string: comparing two keys gives the same result as
+     * comparing their strings. Comparing strings with the collator allocates,
+     * comparing keys does not, so the keys pay off when a string is compared
+     * more than once, e.g. when sorting.
+     */
+    public CollationKey getCollationKey(String s)
+    {
+        return collator.getCollationKey(this.caseSensetive ? s : s.toLowerCase());
+    }
 }
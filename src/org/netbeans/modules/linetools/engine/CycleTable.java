@@ -0,0 +1,205 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.engine;
+
+/**
+ * The chars of a cycle string with a bitset over all 64K chars, so cycling
+ * needs no boxing and no intermediate collections.
+ * <p>
+ * If the text contains exactly one of the cycle chars it is replaced by the
+ * next one in the cycle. If it contains several of them they are all replaced
+ * by the one that occurs first in the text.
+ */
+public final class CycleTable implements TextTransform {
+
+    private static volatile CycleTable last;
+
+    private final String cycleChars;
+    // the distinct cycle chars in the order of the cycle string
+    private final char[] cycle;
+    private final long[] members = new long[(Character.MAX_VALUE + 1) / 64];
+
+    private CycleTable(String cycleChars) {
+        this.cycleChars = cycleChars;
+        char[] distinct = new char[cycleChars.length()];
+        int count = 0;
+        for (int i = 0; i < cycleChars.length(); i++) {
+            char c = cycleChars.charAt(i);
+            if (!contains(c)) {
+                members[c >>> 6] |= 1L << c;
+                distinct[count++] = c;
+            }
+        }
+        cycle = new char[count];
+        System.arraycopy(distinct, 0, cycle, 0, count);
+    }
+
+    /**
+     * The table for the cycle chars. The last table is cached as the cycle
+     * actions use the same string over and over.
+     */
+    public static CycleTable get(String cycleChars) {
+        CycleTable table = last;
+        if (table == null || !table.cycleChars.equals(cycleChars)) {
+            table = new CycleTable(cycleChars);
+            last = table;
+        }
+        return table;
+    }
+
+    public boolean contains(char c) {
+        return (members[c >>> 6] & (1L << c)) != 0;
+    }
+
+    /**
+     * Cycle the text.
+     *
+     * @return the cycled text, or the text itself if nothing changed
+     */
+    public String cycle(String text) {
+        if (cycle.length <= 1) {
+            return text;
+        }
+        // find the first cycle char and whether there is another one
+        int firstIndex = -1;
+        boolean several = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (contains(c)) {
+                if (firstIndex == -1) {
+                    firstIndex = i;
+                } else if (c != text.charAt(firstIndex)) {
+                    several = true;
+                    break;
+                }
+            }
+        }
+        if (firstIndex == -1) {
+            return text;
+        }
+        char[] chars = text.toCharArray();
+        rewrite(chars, firstIndex, chars.length, several);
+        return new String(chars);
+    }
+
+    /**
+     * Cycle the chars of <code>[start, end)</code> in place.
+     *
+     * @return whether any char changed
+     */
+    public boolean cycle(char[] chars, int start, int end) {
+        if (cycle.length <= 1) {
+            return false;
+        }
+        int firstIndex = -1;
+        boolean several = false;
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            if (contains(c)) {
+                if (firstIndex == -1) {
+                    firstIndex = i;
+                } else if (c != chars[firstIndex]) {
+                    several = true;
+                    break;
+                }
+            }
+        }
+        if (firstIndex == -1) {
+            return false;
+        }
+        rewrite(chars, firstIndex, end, several);
+        return true;
+    }
+
+    /**
+     * Cycle the chars of <code>[from, to)</code> of the text.
+     *
+     * @return the runs of chars that changed
+     */
+    @Override
+    public EditScript edits(CharSequence text, int from, int to) {
+        char[] chars = new char[to - from];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = text.charAt(from + i);
+        }
+        if (!cycle(chars, 0, chars.length)) {
+            return EditScript.EMPTY;
+        }
+        EditScript.Collector edits = new EditScript.Collector();
+        int i = 0;
+        while (i < chars.length) {
+            if (chars[i] == text.charAt(from + i)) {
+                i++;
+                continue;
+            }
+            int runEnd = i + 1;
+            while (runEnd < chars.length && chars[runEnd] != text.charAt(from + runEnd)) {
+                runEnd++;
+            }
+            edits.add(from + i, from + runEnd, new String(chars, i, runEnd - i));
+            i = runEnd;
+        }
+        return edits.toScript();
+    }
+
+    private void rewrite(char[] chars, int start, int end, boolean several) {
+        char first = chars[start];
+        if (several) {
+            for (int i = start; i < end; i++) {
+                if (contains(chars[i])) {
+                    chars[i] = first;
+                }
+            }
+        } else {
+            char next = cycle[(indexOf(first) + 1) % cycle.length];
+            for (int i = start; i < end; i++) {
+                if (chars[i] == first) {
+                    chars[i] = next;
+                }
+            }
+        }
+    }
+
+    private int indexOf(char c) {
+        for (int i = 0; i < cycle.length; i++) {
+            if (cycle[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.engine;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Replacements of text ranges, ordered by offset and not overlapping. The
+ * offsets refer to the text before any replacement, so a script is applied
+ * back to front.
+ */
+public final class EditScript {
+
+    public static final EditScript EMPTY = new EditScript(new int[0], new int[0], new String[0], 0);
+
+    private final int[] starts;
+    private final int[] ends;
+    private final String[] replacements;
+    private final int size;
+
+    EditScript(int[] starts, int[] ends, String[] replacements, int size) {
+        this.starts = starts;
+        this.ends = ends;
+        this.replacements = replacements;
+        this.size = size;
+    }
+
+    /**
+     * The scripts of ranges that follow each other, as one script.
+     */
+    public static EditScript concat(List<EditScript> scripts) {
+        int size = 0;
+        for (EditScript script : scripts) {
+            size += script.size;
+        }
+        int[] starts = new int[size];
+        int[] ends = new int[size];
+        String[] replacements = new String[size];
+        int i = 0;
+        for (EditScript script : scripts) {
+            System.arraycopy(script.starts, 0, starts, i, script.size);
+            System.arraycopy(script.ends, 0, ends, i, script.size);
+            System.arraycopy(script.replacements, 0, replacements, i, script.size);
+            i += script.size;
+        }
+        return new EditScript(starts, ends, replacements, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getStart(int index) {
+        return starts[index];
+    }
+
+    public int getEnd(int index) {
+        return ends[index];
+    }
+
+    public String getReplacement(int index) {
+        return replacements[index];
+    }
+
+    /**
+     * The offset after all replacements. An offset inside a replaced range
+     * moves to its start.
+     */
+    public int shift(int offset) {
+        int shift = 0;
+        for (int i = 0; i < size; i++) {
+            if (starts[i] >= offset) {
+                break;
+            } else if (ends[i] > offset) {
+                return starts[i] + shift;
+            }
+            shift += replacements[i].length() - (ends[i] - starts[i]);
+        }
+        return offset + shift;
+    }
+
+    /**
+     * Apply the script to the text.
+     */
+    public String apply(CharSequence text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        int copied = 0;
+        for (int i = 0; i < size; i++) {
+            sb.append(text, copied, starts[i]).append(replacements[i]);
+            copied = ends[i];
+        }
+        return sb.append(text, copied, text.length()).toString();
+    }
+
+    /**
+     * Collects the edits in offset order.
+     */
+    static final class Collector {
+
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private String[] replacements = new String[16];
+        private int size;
+
+        void add(int start, int end, String replacement) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+                replacements = Arrays.copyOf(replacements, size * 2);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            replacements[size] = replacement;
+            size++;
+        }
+
+        EditScript toScript() {
+            return size == 0 ? EMPTY : new EditScript(starts, ends, replacements, size);
+        }
+    }
+}
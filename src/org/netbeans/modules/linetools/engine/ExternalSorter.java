@@ -0,0 +1,453 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.engine;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts lines that are byte ranges of mapped files. Lines are added in input
+ * order and kept in memory up to {@link #getRunBytes()} bytes of heap. A full run is
+ * sorted and spilled to a temporary file, and at the end the runs are merged
+ * with a k-way merge. The bytes of a line are written as they were read, only
+ * the text used for comparing is decoded.
+ * <p>
+ * The charset has to encode <code>'\n'</code> as the single byte
+ * <code>0x0A</code>, as UTF-8 and the ISO-8859 charsets do.
+ */
+public final class ExternalSorter {
+
+    private static volatile long runBytes = Math.max(1L << 20, Math.min(256L << 20, Runtime.getRuntime().maxMemory() / 16));
+
+    private static final int GATHER_SIZE = 512;
+
+    // a Line, its decoded String with the array and the reference to it
+    private static final long LINE_HEAP_BYTES = 32 + 56;
+
+    private final SortOptions options;
+    private final Comparator<String> comparator;
+    private final CharsetDecoder decoder;
+    private final ByteBuffer separator;
+    private final long maxRunBytes;
+
+    private final List<Line> run = new ArrayList<>();
+    private long heapInRun;
+    private final List<File> runFiles = new ArrayList<>();
+
+    /**
+     * @param separator added to a last line without a line terminator
+     */
+    public ExternalSorter(SortOptions options, Charset charset, byte[] separator) {
+        this(options, charset, separator, runBytes);
+    }
+
+    /**
+     * @param separator added to a last line without a line terminator
+     * @param maxRunBytes the heap of a run, less than {@link #getRunBytes()}
+     * when several sorters run concurrently
+     */
+    public ExternalSorter(SortOptions options, Charset charset, byte[] separator, long maxRunBytes) {
+        this.options = options;
+        this.comparator = options.getComparator();
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.separator = ByteBuffer.wrap(separator);
+        this.maxRunBytes = maxRunBytes;
+    }
+
+    /**
+     * Getter for property runBytes.
+     *
+     * @return Value of property runBytes.
+     */
+    public static long getRunBytes() {
+        return runBytes;
+    }
+
+    /**
+     * Setter for property runBytes.
+     *
+     * @param runBytes New value of property runBytes.
+     */
+    public static void setRunBytes(long runBytes) {
+        ExternalSorter.runBytes = runBytes;
+    }
+
+    public static boolean isSupported(Charset charset) {
+        return Arrays.equals("\n".getBytes(charset), new byte[]{'\n'}) // NOI18N
+                && Arrays.equals("\r".getBytes(charset), new byte[]{'\r'}); // NOI18N
+    }
+
+    /**
+     * Add the line <code>[start, end)</code> of the buffer. The buffer must
+     * stay valid until {@link #writeTo} returns.
+     *
+     * @param end the end including the line terminator, if any
+     */
+    public void add(ByteBuffer buffer, int start, int end) throws IOException {
+        String text = decode(buffer, start, end);
+        run.add(new Line(buffer, start, end, text));
+        heapInRun += LINE_HEAP_BYTES + 2L * text.length();
+        if (!buffer.isDirect()) {
+            // the bytes are on the heap as well
+            heapInRun += end - start;
+        }
+        if (heapInRun >= maxRunBytes) {
+            spill();
+        }
+    }
+
+    /**
+     * Write the sorted lines and delete the runs.
+     */
+    public void writeTo(GatheringByteChannel out) throws IOException {
+        try {
+            if (runFiles.isEmpty()) {
+                sortRun();
+                LineWriter writer = new LineWriter(out);
+                Deduplicator deduplicator = new Deduplicator();
+                for (Line line : run) {
+                    if (deduplicator.accept(line.text)) {
+                        writer.write(line);
+                    }
+                }
+                writer.flush();
+            } else {
+                if (!run.isEmpty()) {
+                    spill();
+                }
+                merge(out);
+            }
+        } finally {
+            run.clear();
+            for (File runFile : runFiles) {
+                if (!runFile.delete()) {
+                    // still mapped on some platforms
+                    runFile.deleteOnExit();
+                }
+            }
+            runFiles.clear();
+        }
+    }
+
+    private void sortRun() {
+        // stable, equal lines keep their order
+        Line[] lines = run.toArray(new Line[run.size()]);
+        Arrays.sort(lines, new Comparator<Line>() {
+            @Override
+            public int compare(Line line1, Line line2) {
+                return comparator.compare(line1.text, line2.text);
+            }
+        });
+        run.clear();
+        run.addAll(Arrays.asList(lines));
+    }
+
+    private void spill() throws IOException {
+        sortRun();
+        File runFile = File.createTempFile("linetools-run", ".tmp"); // NOI18N
+        runFiles.add(runFile);
+        try (RandomAccessFile raf = new RandomAccessFile(runFile, "rw")) { // NOI18N
+            LineWriter writer = new LineWriter(raf.getChannel());
+            Deduplicator deduplicator = new Deduplicator();
+            for (Line line : run) {
+                if (deduplicator.accept(line.text)) {
+                    writer.write(line);
+                }
+            }
+            writer.flush();
+        }
+        run.clear();
+        heapInRun = 0;
+    }
+
+    private void merge(GatheringByteChannel out) throws IOException {
+        PriorityQueue<RunCursor> queue = new PriorityQueue<>(runFiles.size(), new Comparator<RunCursor>() {
+            @Override
+            public int compare(RunCursor cursor1, RunCursor cursor2) {
+                int result = comparator.compare(cursor1.line.text, cursor2.line.text);
+                // keep equal lines in input order
+                return result != 0 ? result : cursor1.index - cursor2.index;
+            }
+        });
+        for (int i = 0; i < runFiles.size(); i++) {
+            RunCursor cursor = new RunCursor(runFiles.get(i), i);
+            if (cursor.next()) {
+                queue.add(cursor);
+            }
+        }
+        LineWriter writer = new LineWriter(out);
+        Deduplicator deduplicator = new Deduplicator();
+        while (!queue.isEmpty()) {
+            RunCursor cursor = queue.poll();
+            if (deduplicator.accept(cursor.line.text)) {
+                writer.write(cursor.line);
+            }
+            if (cursor.next()) {
+                queue.add(cursor);
+            }
+        }
+        writer.flush();
+    }
+
+    private String decode(ByteBuffer buffer, int start, int end) throws CharacterCodingException {
+        int textEnd = end;
+        if (textEnd > start && buffer.get(textEnd - 1) == '\n') {
+            textEnd--;
+            if (textEnd > start && buffer.get(textEnd - 1) == '\r') {
+                textEnd--;
+            }
+        }
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(textEnd).position(start);
+        return decoder.decode(slice).toString();
+    }
+
+    private static final class Line {
+
+        private final ByteBuffer buffer;
+        private final int start;
+        private final int end;
+        private final String text;
+
+        Line(ByteBuffer buffer, int start, int end, String text) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+            this.text = text;
+        }
+
+        boolean isTerminated() {
+            return end > start && buffer.get(end - 1) == '\n';
+        }
+    }
+
+    /**
+     * The lines of a spilled run, read from the mapped run file.
+     */
+    private final class RunCursor {
+
+        private final MappedByteBuffer buffer;
+        private final int index;
+        private int position;
+        private Line line;
+
+        RunCursor(File runFile, int index) throws IOException {
+            try (RandomAccessFile raf = new RandomAccessFile(runFile, "r")) { // NOI18N
+                buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            }
+            this.index = index;
+        }
+
+        boolean next() throws IOException {
+            int limit = buffer.limit();
+            if (position >= limit) {
+                line = null;
+                return false;
+            }
+            int end = position;
+            while (end < limit && buffer.get(end) != '\n') {
+                end++;
+            }
+            end = Math.min(limit, end + 1);
+            line = new Line(buffer, position, end, decode(buffer, position, end));
+            position = end;
+            return true;
+        }
+    }
+
+    /**
+     * Writes lines as slices of their buffers with gathering writes.
+     */
+    private final class LineWriter {
+
+        private final GatheringByteChannel channel;
+        private final ByteBuffer[] batch = new ByteBuffer[GATHER_SIZE];
+        private int size;
+
+        LineWriter(GatheringByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void write(Line line) throws IOException {
+            ByteBuffer slice = line.buffer.duplicate();
+            slice.limit(line.end).position(line.start);
+            add(slice);
+            if (!line.isTerminated()) {
+                add(separator.duplicate());
+            }
+        }
+
+        private void add(ByteBuffer buffer) throws IOException {
+            batch[size++] = buffer;
+            if (size == batch.length) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            int offset = 0;
+            while (offset < size) {
+                channel.write(batch, offset, size - offset);
+                while (offset < size && !batch[offset].hasRemaining()) {
+                    offset++;
+                }
+            }
+            Arrays.fill(batch, 0, size, null);
+            size = 0;
+        }
+    }
+
+    /**
+     * Drops the lines that equal an earlier line, exactly or ignoring case.
+     * Equal lines compare as equal, so they are adjacent in the sorted order
+     * or at least in the same group of lines the comparator finds equal.
+     */
+    private final class Deduplicator {
+
+        private final List<String> group = new ArrayList<>();
+
+        boolean accept(String text) {
+            if (!options.isRemoveDuplicates()) {
+                return true;
+            }
+            if (!group.isEmpty() && comparator.compare(group.get(0), text) != 0) {
+                group.clear();
+            }
+            for (String kept : group) {
+                if (options.isDuplicate(kept, text)) {
+                    return false;
+                }
+            }
+            group.add(text);
+            return true;
+        }
+    }
+    /**
+     * Sorts text appended in pieces, e.g. the segments of a document, split
+     * after each <code>'\n'</code>. The lines are encoded as UTF-8 into
+     * chunks for an {@link ExternalSorter}, so only a run of them is held in
+     * memory until {@link #sort()} returns the sorted text.
+     */
+    public static final class TextSorter {
+
+        private static final int CHUNK_SIZE = 1 << 16;
+
+        private final ExternalSorter sorter;
+        // the text of the line not terminated yet
+        private final StringBuilder line = new StringBuilder();
+        private ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+        private int length;
+
+        public TextSorter(SortOptions options) {
+            this.sorter = new ExternalSorter(options, StandardCharsets.UTF_8, new byte[]{'\n'});
+        }
+
+        public void append(char[] text, int offset, int count) throws IOException {
+            int lineStart = offset;
+            for (int i = offset, end = offset + count; i < end; i++) {
+                if (text[i] == '\n') {
+                    line.append(text, lineStart, i + 1 - lineStart);
+                    addLine();
+                    lineStart = i + 1;
+                }
+            }
+            line.append(text, lineStart, offset + count - lineStart);
+            length += count;
+        }
+
+        private void addLine() throws IOException {
+            byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+            line.setLength(0);
+            if (bytes.length > chunk.remaining()) {
+                // the sorter keeps the lines of the full chunk
+                chunk = ByteBuffer.allocate(Math.max(CHUNK_SIZE, bytes.length));
+            }
+            int start = chunk.position();
+            chunk.put(bytes);
+            sorter.add(chunk, start, chunk.position());
+        }
+
+        /**
+         * The sorted text. A last line without a line terminator gets one.
+         */
+        public String sort() throws IOException {
+            if (line.length() > 0) {
+                addLine();
+            }
+            File sortedFile = File.createTempFile("linetools-sort", ".tmp"); // NOI18N
+            try {
+                try (RandomAccessFile out = new RandomAccessFile(sortedFile, "rw")) { // NOI18N
+                    sorter.writeTo(out.getChannel());
+                }
+                // at most the text and the added line terminator
+                char[] sorted = new char[length + 1];
+                int sortedLength = 0;
+                try (Reader in = new InputStreamReader(new FileInputStream(sortedFile), StandardCharsets.UTF_8)) {
+                    int read;
+                    while ((read = in.read(sorted, sortedLength, sorted.length - sortedLength)) > 0) {
+                        sortedLength += read;
+                    }
+                }
+                return new String(sorted, 0, sortedLength);
+            } finally {
+                if (!sortedFile.delete()) {
+                    sortedFile.deleteOnExit();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import org.openide.ErrorManager;
+import org.openide.util.NbBundle;
+
+/**
+ * Sorts the lines of a file on disk without loading it into an editor. The
+ * file is mapped in chunks that end at a line end, the lines are sorted as
+ * byte ranges of the chunks by an {@link ExternalSorter} and written to a
+ * temporary file next to the original, which then replaces it.
+ */
+public final class FileSorter {
+
+    private static final int MAX_CHUNK = 1 << 30;
+
+    private FileSorter() {
+    }
+
+    /**
+     * @return whether the file changed, an already sorted file is not
+     * replaced
+     * @throws IOException also if the charset is not supported or a line is
+     * longer than the maximal chunk
+     */
+    public static boolean sort(File file, Charset charset, SortOptions options) throws IOException {
+        return sort(file, charset, options, ExternalSorter.getRunBytes());
+    }
+
+    /**
+     * Sort with runs of at most the given bytes, see
+     * {@link ExternalSorter#ExternalSorter(SortOptions, Charset, byte[], long)}.
+     */
+    public static boolean sort(File file, Charset charset, SortOptions options, long runBytes) throws IOException {
+        if (!ExternalSorter.isSupported(charset)) {
+            throw new IOException(NbBundle.getMessage(FileSorter.class, "MSG_UnsupportedEncoding", charset.name())); // NOI18N
+        }
+        ExternalSorter sorter = new ExternalSorter(options, charset, "\n".getBytes(charset), runBytes); // NOI18N
+        File sorted = File.createTempFile(".sort-" + file.getName(), ".tmp", file.getParentFile()); // NOI18N
+        try {
+            try (RandomAccessFile in = new RandomAccessFile(file, "r"); // NOI18N
+                    RandomAccessFile out = new RandomAccessFile(sorted, "rw")) { // NOI18N
+                FileChannel channel = in.getChannel();
+                long size = channel.size();
+                long position = 0;
+                while (position < size) {
+                    MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                            Math.min(MAX_CHUNK, size - position));
+                    int limit = chunk.limit();
+                    if (position + limit < size) {
+                        // end the chunk after its last line end
+                        while (limit > 0 && chunk.get(limit - 1) != '\n') {
+                            limit--;
+                        }
+                        if (limit == 0) {
+                            throw new IOException(NbBundle.getMessage(FileSorter.class, "MSG_LineTooLong", file)); // NOI18N
+                        }
+                    }
+                    int start = 0;
+                    for (int i = 0; i < limit; i++) {
+                        if (chunk.get(i) == '\n') {
+                            sorter.add(chunk, start, i + 1);
+                            start = i + 1;
+                        }
+                    }
+                    if (start < limit) {
+                        sorter.add(chunk, start, limit);
+                    }
+                    position += limit;
+                }
+                sorter.writeTo(out.getChannel());
+            }
+            if (isSame(file, sorted)) {
+                return false;
+            }
+            replace(sorted, file);
+            return true;
+        } finally {
+            if (sorted.exists() && !sorted.delete()) {
+                sorted.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Atomically replace the file with the other one, where the file system
+     * supports it. The replacement gets the owner, permissions and ACL of the
+     * file first.
+     */
+    public static void replace(File replacement, File file) throws IOException {
+        copyAttributes(file.toPath(), replacement.toPath());
+        try {
+            Files.move(replacement.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(replacement.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void copyAttributes(Path from, Path to) throws IOException {
+        PosixFileAttributeView fromPosix = Files.getFileAttributeView(from, PosixFileAttributeView.class);
+        PosixFileAttributeView toPosix = Files.getFileAttributeView(to, PosixFileAttributeView.class);
+        if (fromPosix != null && toPosix != null) {
+            PosixFileAttributes attributes = fromPosix.readAttributes();
+            try {
+                // only a privileged user can give the file away, set the
+                // owner before the permissions, it may clear some of them
+                if (!attributes.owner().equals(toPosix.getOwner())) {
+                    toPosix.setOwner(attributes.owner());
+                }
+                toPosix.setGroup(attributes.group());
+            } catch (IOException ex) {
+                ErrorManager.getDefault().notify(ErrorManager.INFORMATIONAL, ex);
+            }
+            toPosix.setPermissions(attributes.permissions());
+        }
+        AclFileAttributeView fromAcl = Files.getFileAttributeView(from, AclFileAttributeView.class);
+        AclFileAttributeView toAcl = Files.getFileAttributeView(to, AclFileAttributeView.class);
+        if (fromAcl != null && toAcl != null) {
+            toAcl.setAcl(fromAcl.getAcl());
+        }
+    }
+
+    private static boolean isSame(File file1, File file2) throws IOException {
+        if (file1.length() != file2.length()) {
+            return false;
+        }
+        try (RandomAccessFile in1 = new RandomAccessFile(file1, "r"); // NOI18N
+                RandomAccessFile in2 = new RandomAccessFile(file2, "r")) { // NOI18N
+            long size = in1.length();
+            for (long position = 0; position < size; position += MAX_CHUNK) {
+                long length = Math.min(MAX_CHUNK, size - position);
+                MappedByteBuffer buffer1 = in1.getChannel().map(FileChannel.MapMode.READ_ONLY, position, length);
+                MappedByteBuffer buffer2 = in2.getChannel().map(FileChannel.MapMode.READ_ONLY, position, length);
+                if (!buffer1.equals(buffer2)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
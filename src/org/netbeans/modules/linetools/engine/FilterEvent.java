@@ -0,0 +1,117 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.engine;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for one {@link LineOperations#filter} or
+ * {@link LineOperations#filterOutput} run. Only load this class when
+ * {@link FlightRecorder#isAvailable()}.
+ */
+@Name("org.netbeans.modules.linetools.Filter") // NOI18N
+@Label("Line Tools Filter")
+@Category({"NetBeans", "Line Tools"})
+@Description("Spawn, I/O and apply timings of an external filter command")
+final class FilterEvent extends Event {
+
+    @Label("Command")
+    String command;
+
+    @Label("Processes")
+    int processes;
+
+    @Label("Spawn Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long spawnTime;
+
+    @Label("Bytes Written")
+    @DataAmount
+    long bytesWritten;
+
+    @Label("Lines Written")
+    long linesWritten;
+
+    @Label("Blocked on STDIN")
+    @Timespan(Timespan.NANOSECONDS)
+    long stdinBlocked;
+
+    @Label("Bytes Read")
+    @DataAmount
+    long bytesRead;
+
+    @Label("Lines Read")
+    long linesRead;
+
+    @Label("Time to First Output")
+    @Description("Time from spawning the process to the first STDOUT byte, -1 if there was no output")
+    @Timespan(Timespan.NANOSECONDS)
+    long timeToFirstOutput;
+
+    @Label("Exit Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    long exitWait;
+
+    @Label("Apply Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long applyTime;
+
+    static void commit(String command, FilterStatistics statistics) {
+        FilterEvent event = new FilterEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+        event.command = command;
+        event.processes = statistics.processes;
+        event.spawnTime = statistics.spawnNanos;
+        event.bytesWritten = statistics.bytesWritten;
+        event.linesWritten = statistics.linesWritten;
+        event.stdinBlocked = statistics.stdinBlockedNanos;
+        event.bytesRead = statistics.bytesRead;
+        event.linesRead = statistics.linesRead;
+        event.timeToFirstOutput = statistics.firstOutputNanos;
+        event.exitWait = statistics.exitWaitNanos;
+        event.applyTime = statistics.applyNanos;
+        event.commit();
+    }
+}
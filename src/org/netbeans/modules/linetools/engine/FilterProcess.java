@@ -0,0 +1,294 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 1997-2007 Sun Microsystems, Inc. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Sun Microsystems, Inc. Portions Copyright 1997-2006 Sun
+ * Microsystems, Inc. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.engine;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import org.openide.ErrorManager;
+
+/**
+ *
+ * @author Sandip V. Chitale (Sandip.Chitale@Sun.Com)
+ */
+public class FilterProcess {
+
+    private String[] filterCommand;
+    private int expectedNumberOfOutputLines;
+
+    private Process filterProcess;
+
+    private PrintWriter printWriter;
+
+    private List<String> filterProcessStdOut;
+    private List<String> filterProcessStdErr;
+
+    private Thread filterProcessStdOutReader;
+    private Thread filterProcessStdErrReader;
+
+    private final FilterStatistics statistics = new FilterStatistics();
+    private long spawnStart;
+    // the readers fail when the streams are closed by destroy
+    private volatile boolean destroyed;
+
+    public FilterProcess(String[] filterCommand) {
+        this(filterCommand, 100);
+    }
+
+    public FilterProcess(String[] filterCommand, int expectedNumberOfOutputLines) {
+        this.filterCommand = filterCommand;
+        this.expectedNumberOfOutputLines = expectedNumberOfOutputLines;
+    }
+
+    public PrintWriter exec() throws IOException {
+        // Run the filter process
+        spawnStart = System.nanoTime();
+        try {
+            filterProcess = Runtime.getRuntime().exec(filterCommand);
+        } catch (IOException ex) {
+            OperationStatistics.recordError(OperationStatistics.Metric.FILTER_SPAWN, 0);
+            throw ex;
+        }
+        statistics.spawnNanos = System.nanoTime() - spawnStart;
+        statistics.processes = 1;
+
+        // Setup STDOUT Reading
+        filterProcessStdOut = new ArrayList<>(expectedNumberOfOutputLines);
+        filterProcessStdOutReader = new Thread(
+                new InputStreamReaderThread(new StdOutStatisticsInputStream(filterProcess.getInputStream(), spawnStart),
+                        filterProcessStdOut, statistics),
+                filterCommand[0] + ":STDOUT Reader"); // NOI18N
+        filterProcessStdOutReader.start();
+
+        // Setup STDERR Reading
+        filterProcessStdErr = new ArrayList<>();
+        filterProcessStdErrReader = new Thread(
+                new InputStreamReaderThread(filterProcess.getErrorStream(),
+                        filterProcessStdErr, null),
+                filterCommand[0] + ":STDERR Reader"); // NOI18N
+        filterProcessStdErrReader.start();
+
+        printWriter = new PrintWriter(new StdInStatisticsOutputStream(filterProcess.getOutputStream()));
+
+        return printWriter;
+    }
+
+    public int waitFor() {
+        if (filterProcess != null) {
+            try {
+                long waitStart = System.nanoTime();
+                int exitStatus = filterProcess.waitFor();
+                // the readers must have drained STDOUT/STDERR before the
+                // collected output can be handed out
+                filterProcessStdOutReader.join();
+                filterProcessStdErrReader.join();
+                long exit = System.nanoTime();
+                statistics.exitWaitNanos = exit - waitStart;
+                OperationStatistics.record(OperationStatistics.Metric.FILTER_SPAWN,
+                        statistics.linesWritten, statistics.spawnNanos);
+                if (exitStatus == 0) {
+                    OperationStatistics.record(OperationStatistics.Metric.FILTER_RUN,
+                            statistics.linesWritten, exit - spawnStart);
+                } else {
+                    OperationStatistics.recordError(OperationStatistics.Metric.FILTER_RUN, statistics.linesWritten);
+                }
+                return exitStatus;
+            } catch (InterruptedException ex) {
+                // cancelled, e.g. the other shards of a ShardedFilter when
+                // one of them failed; not an error to tell the user about
+                Thread.currentThread().interrupt();
+            }
+        }
+        return -1;
+    }
+
+    public String[] getStdOutOutput() {
+        if (filterProcessStdOut != null) {
+            return (String[]) filterProcessStdOut.toArray(new String[0]);
+        }
+        return null;
+    }
+
+    public String[] getStdErrOutput() {
+        if (filterProcessStdErr != null) {
+            return (String[]) filterProcessStdErr.toArray(new String[0]);
+        }
+        return null;
+    }
+
+    /**
+     * The statistics of this process. Complete after {@link #waitFor()}.
+     *
+     * @return
+     */
+    public FilterStatistics getStatistics() {
+        return statistics;
+    }
+
+    public void destroy() {
+        if (filterProcess != null) {
+            destroyed = true;
+            filterProcess.destroy();
+            filterProcess = null;
+            filterProcessStdOut = null;
+            filterProcessStdErr = null;
+        }
+    }
+
+    class InputStreamReaderThread implements Runnable {
+
+        private final InputStream is;
+        private final List<String> output;
+        private final FilterStatistics statistics;
+
+        InputStreamReaderThread(InputStream is, List<String> output, FilterStatistics statistics) {
+            this.is = is;
+            this.output = output;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public void run() {
+            try {
+                BufferedReader br = new BufferedReader(new InputStreamReader(is));
+                String line;
+                while ((line = br.readLine()) != null) {
+                    output.add(line);
+                }
+                if (statistics != null) {
+                    statistics.linesRead = output.size();
+                }
+            } catch (IOException ioe) {
+                if (!destroyed) {
+                    ErrorManager.getDefault().notify(ioe);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes and lines written to STDIN of the filter process and
+     * the time spent blocked in writing them.
+     */
+    private final class StdInStatisticsOutputStream extends FilterOutputStream {
+
+        StdInStatisticsOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            long start = System.nanoTime();
+            out.write(b);
+            statistics.stdinBlockedNanos += System.nanoTime() - start;
+            statistics.bytesWritten++;
+            if (b == '\n') {
+                statistics.linesWritten++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            out.write(b, off, len);
+            statistics.stdinBlockedNanos += System.nanoTime() - start;
+            statistics.bytesWritten += len;
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    statistics.linesWritten++;
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            long start = System.nanoTime();
+            out.flush();
+            statistics.stdinBlockedNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Counts the bytes read from STDOUT of the filter process and records when
+     * the first of them arrived.
+     */
+    private final class StdOutStatisticsInputStream extends FilterInputStream {
+
+        private final long spawnStart;
+
+        StdOutStatisticsInputStream(InputStream in, long spawnStart) {
+            super(in);
+            this.spawnStart = spawnStart;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = in.read(b, off, len);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(int read) {
+            if (statistics.firstOutputNanos < 0) {
+                statistics.firstOutputNanos = System.nanoTime() - spawnStart;
+            }
+            statistics.bytesRead += read;
+        }
+    }
+}
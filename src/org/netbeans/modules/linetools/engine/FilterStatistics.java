@@ -0,0 +1,145 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.engine;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Counters and timings of a filter run. A {@link FilterProcess} records the
+ * process related values, the caller adds the time spent applying the output.
+ * When several shards are filtered the statistics of all processes are added
+ * up, so the timings are the sum over the shards.
+ * <p>
+ * {@link #commit} writes a summary to the IDE log (level <code>INFO</code>)
+ * and emits a <code>org.netbeans.modules.linetools.Filter</code> event when
+ * running with JDK Flight Recorder.
+ */
+public final class FilterStatistics {
+
+    private static final Logger LOG = Logger.getLogger(FilterStatistics.class.getName());
+
+    // each value is only written by one thread (the caller, the STDOUT
+    // reader) and read after FilterProcess.waitFor() joined the readers
+    long spawnNanos;
+    long bytesWritten;
+    long linesWritten;
+    long stdinBlockedNanos;
+    long bytesRead;
+    long linesRead;
+    long firstOutputNanos = -1;
+    long exitWaitNanos;
+    long applyNanos;
+    int processes;
+
+    /**
+     * Add the time spent applying the output to the document or file.
+     */
+    public void addApplyNanos(long nanos) {
+        applyNanos += nanos;
+    }
+
+    public long getSpawnNanos() {
+        return spawnNanos;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getLinesRead() {
+        return linesRead;
+    }
+
+    /**
+     * The time from starting the process to its first output, -1 if it
+     * wrote nothing.
+     */
+    public long getFirstOutputNanos() {
+        return firstOutputNanos;
+    }
+
+    void add(FilterStatistics statistics) {
+        spawnNanos += statistics.spawnNanos;
+        bytesWritten += statistics.bytesWritten;
+        linesWritten += statistics.linesWritten;
+        stdinBlockedNanos += statistics.stdinBlockedNanos;
+        bytesRead += statistics.bytesRead;
+        linesRead += statistics.linesRead;
+        if (statistics.firstOutputNanos >= 0
+                && (firstOutputNanos < 0 || statistics.firstOutputNanos < firstOutputNanos)) {
+            firstOutputNanos = statistics.firstOutputNanos;
+        }
+        exitWaitNanos += statistics.exitWaitNanos;
+        applyNanos += statistics.applyNanos;
+        processes += statistics.processes;
+    }
+
+    /**
+     * Log the statistics and emit the flight recorder event. Also called
+     * when the filter failed, with what was recorded until then.
+     *
+     * @param command the filter command as typed by the user
+     */
+    public void commit(String command) {
+        LOG.log(Level.INFO, "Filter \"{0}\": {1}", new Object[]{command, this}); // NOI18N
+        if (FlightRecorder.isAvailable()) {
+            FilterEvent.commit(command, this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "processes=" + processes // NOI18N
+                + ", spawn=" + millis(spawnNanos) + "ms" // NOI18N
+                + ", written=" + bytesWritten + "B/" + linesWritten + " lines" // NOI18N
+                + ", stdinBlocked=" + millis(stdinBlockedNanos) + "ms" // NOI18N
+                + ", read=" + bytesRead + "B/" + linesRead + " lines" // NOI18N
+                + ", firstOutput=" + (firstOutputNanos < 0 ? "-" : millis(firstOutputNanos) + "ms") // NOI18N
+                + ", exitWait=" + millis(exitWaitNanos) + "ms" // NOI18N
+                + ", apply=" + millis(applyNanos) + "ms"; // NOI18N
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
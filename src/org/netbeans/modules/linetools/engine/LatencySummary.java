@@ -0,0 +1,110 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.engine;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * The latencies of one metric and selection size, in nanoseconds.
+ */
+public final class LatencySummary {
+
+    private final String metric;
+    private final String size;
+    private final long invocations;
+    private final long errors;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long max;
+
+    @ConstructorProperties({"metric", "size", "invocations", "errors", "p50", "p90", "p99", "max"}) // NOI18N
+    public LatencySummary(String metric, String size, long invocations, long errors,
+            long p50, long p90, long p99, long max) {
+        this.metric = metric;
+        this.size = size;
+        this.invocations = invocations;
+        this.errors = errors;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    /**
+     * The number of selected lines, e.g. <code>100-999</code>.
+     */
+    public String getSize() {
+        return size;
+    }
+
+    public long getInvocations() {
+        return invocations;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP90() {
+        return p90;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return metric + " " + size // NOI18N
+                + ": invocations=" + invocations // NOI18N
+                + ", errors=" + errors // NOI18N
+                + ", p50=" + p50 + "ns, p90=" + p90 + "ns, p99=" + p99 + "ns, max=" + max + "ns"; // NOI18N
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.engine;
+
+import java.nio.ByteBuffer;
+import java.text.CollationElementIterator;
+import java.text.Collator;
+import java.text.RuleBasedCollator;
+import java.util.Locale;
+
+/**
+ * Compares Latin-1 text stored as bytes exactly like the collator of
+ * {@link CustomComparator}, without creating strings or collation keys. The
+ * collation elements of each of the 256 chars are looked up once, the
+ * English rules have no contractions in Latin-1, so the elements of a text
+ * are the elements of its chars. {@link #compare} is the comparison of
+ * <code>RuleBasedCollator</code> on these elements.
+ */
+final class Latin1Collation {
+
+    private static final int NULL_ORDER = CollationElementIterator.NULLORDER;
+
+    private static final Latin1Collation MATCH_CASE = new Latin1Collation(true);
+    private static final Latin1Collation IGNORE_CASE = new Latin1Collation(false);
+
+    // the chars String.equalsIgnoreCase and String.CASE_INSENSITIVE_ORDER
+    // compare
+    private static final char[] FOLDED = new char[256];
+
+    static {
+        for (int c = 0; c < FOLDED.length; c++) {
+            FOLDED[c] = Character.toLowerCase(Character.toUpperCase((char) c));
+        }
+    }
+
+    // the collation elements of each char
+    private final int[][] elements = new int[256][];
+
+    private Latin1Collation(boolean matchCase) {
+        RuleBasedCollator collator = (RuleBasedCollator) Collator.getInstance(Locale.ENGLISH);
+        int[] buffer = new int[16];
+        for (int c = 0; c < elements.length; c++) {
+            String text = String.valueOf((char) c);
+            // CustomComparator compares the lower case text
+            CollationElementIterator iterator = collator.getCollationElementIterator(matchCase ? text : text.toLowerCase());
+            int count = 0;
+            int order;
+            while ((order = iterator.next()) != NULL_ORDER) {
+                buffer[count++] = order;
+            }
+            int[] charElements = new int[count];
+            System.arraycopy(buffer, 0, charElements, 0, count);
+            elements[c] = charElements;
+        }
+    }
+
+    static Latin1Collation get(boolean matchCase) {
+        return matchCase ? MATCH_CASE : IGNORE_CASE;
+    }
+
+    static char fold(byte b) {
+        return FOLDED[b & 0xFF];
+    }
+
+    /**
+     * Compare the texts <code>[start1, end1)</code> and
+     * <code>[start2, end2)</code> of the bytes, their absolute indices in
+     * the buffer.
+     */
+    int compare(ByteBuffer bytes, int start1, int end1, int start2, int end2) {
+        int result = 0;
+        boolean checkSecondaryAndTertiary = true;
+        boolean checkTertiary = true;
+        // the next char and the next of its elements of each text
+        int position1 = start1;
+        int element1 = 0;
+        int position2 = start2;
+        int element2 = 0;
+        int order1 = 0;
+        int order2 = 0;
+        boolean next1 = true;
+        boolean next2 = true;
+        while (true) {
+            if (next1) {
+                if (position1 < end1) {
+                    int[] charElements = elements[bytes.get(position1) & 0xFF];
+                    if (charElements.length == 0) {
+                        position1++;
+                        continue;
+                    }
+                    order1 = charElements[element1++];
+                    if (element1 == charElements.length) {
+                        element1 = 0;
+                        position1++;
+                    }
+                } else {
+                    order1 = NULL_ORDER;
+                }
+            } else {
+                next1 = true;
+            }
+            if (next2) {
+                if (position2 < end2) {
+                    int[] charElements = elements[bytes.get(position2) & 0xFF];
+                    if (charElements.length == 0) {
+                        position2++;
+                        // keep the element of the first text
+                        next1 = false;
+                        continue;
+                    }
+                    order2 = charElements[element2++];
+                    if (element2 == charElements.length) {
+                        element2 = 0;
+                        position2++;
+                    }
+                } else {
+                    order2 = NULL_ORDER;
+                }
+            } else {
+                next2 = true;
+            }
+            if (order1 == NULL_ORDER || order2 == NULL_ORDER) {
+                break;
+            }
+            if (order1 == order2) {
+                continue;
+            }
+            int primary1 = primary(order1);
+            int primary2 = primary(order2);
+            if (primary1 != primary2) {
+                if (order1 == 0) {
+                    next2 = false;
+                    continue;
+                }
+                if (order2 == 0) {
+                    next1 = false;
+                    continue;
+                }
+                if (primary1 == 0) {
+                    if (checkSecondaryAndTertiary) {
+                        result = 1;
+                        checkSecondaryAndTertiary = false;
+                    }
+                    next2 = false;
+                } else if (primary2 == 0) {
+                    if (checkSecondaryAndTertiary) {
+                        result = -1;
+                        checkSecondaryAndTertiary = false;
+                    }
+                    next1 = false;
+                } else {
+                    return primary1 < primary2 ? -1 : 1;
+                }
+            } else if (checkSecondaryAndTertiary) {
+                int secondary1 = secondary(order1);
+                int secondary2 = secondary(order2);
+                if (secondary1 != secondary2) {
+                    result = secondary1 < secondary2 ? -1 : 1;
+                    checkSecondaryAndTertiary = false;
+                } else if (checkTertiary) {
+                    int tertiary1 = tertiary(order1);
+                    int tertiary2 = tertiary(order2);
+                    if (tertiary1 != tertiary2) {
+                        result = tertiary1 < tertiary2 ? -1 : 1;
+                        checkTertiary = false;
+                    }
+                }
+            }
+        }
+
+        // the remaining elements of the longer text
+        if (order1 != NULL_ORDER) {
+            return remaining(bytes, order1, position1, element1, end1, 1, result, checkSecondaryAndTertiary);
+        } else if (order2 != NULL_ORDER) {
+            return remaining(bytes, order2, position2, element2, end2, -1, result, checkSecondaryAndTertiary);
+        }
+        return result;
+    }
+
+    private int remaining(ByteBuffer bytes, int order, int position, int element, int end, int longer,
+            int result, boolean checkSecondaryAndTertiary) {
+        while (true) {
+            if (primary(order) != 0) {
+                return longer;
+            } else if (secondary(order) != 0 && checkSecondaryAndTertiary) {
+                result = longer;
+                checkSecondaryAndTertiary = false;
+            }
+            // the next element, skipping the chars without any
+            while (position < end && elements[bytes.get(position) & 0xFF].length == 0) {
+                position++;
+            }
+            if (position == end) {
+                return result;
+            }
+            int[] charElements = elements[bytes.get(position) & 0xFF];
+            order = charElements[element++];
+            if (element == charElements.length) {
+                element = 0;
+                position++;
+            }
+        }
+    }
+
+    private static int primary(int order) {
+        return order >>> 16;
+    }
+
+    private static int secondary(int order) {
+        return (order & 0xff00) >> 8;
+    }
+
+    private static int tertiary(int order) {
+        return order & 0xff;
+    }
+}
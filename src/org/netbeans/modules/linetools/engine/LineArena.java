@@ -0,0 +1,400 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Lines held in one array with a table of their start offsets instead of a
+ * string per line. Latin-1 text, e.g. most logs, is stored as one byte per
+ * char; the text is only stored as chars if it has a char above
+ * <code>0xFF</code>. Each line includes its line terminator.
+ * <p>
+ * {@link LineSorter#permutation(LineArena, SortOptions)} sorts and removes
+ * duplicates directly on the bytes.
+ * <p>
+ * The bytes may be kept off the heap, see
+ * {@link Builder#Builder(ByteBuffer, int)}: then the heap only holds the
+ * offsets, whatever the number of lines.
+ */
+public final class LineArena {
+
+    // one of them is null
+    private final ByteBuffer bytes;
+    private final char[] chars;
+    // the start of each line and the end of the last one
+    private final int[] offsets;
+    private final int size;
+
+    private LineArena(ByteBuffer bytes, char[] chars, int[] offsets, int size) {
+        this.bytes = bytes;
+        this.chars = chars;
+        this.offsets = offsets;
+        this.size = size;
+    }
+
+    /**
+     * The number of lines.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The number of chars of all lines.
+     */
+    public int getLength() {
+        return offsets[size];
+    }
+
+    /**
+     * Whether the lines are stored as bytes.
+     */
+    public boolean isLatin1() {
+        return bytes != null;
+    }
+
+    /**
+     * The number of chars of the line.
+     */
+    public int getLength(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    public String getLine(int index) {
+        int start = offsets[index];
+        int length = offsets[index + 1] - start;
+        if (bytes != null) {
+            byte[] line = new byte[length];
+            copyBytes(start, line, 0, length);
+            return new String(line, StandardCharsets.ISO_8859_1);
+        }
+        return new String(chars, start, length);
+    }
+
+    /**
+     * Copy the chars <code>[start, end)</code> of the line to the array,
+     * like <code>String.getChars</code>.
+     */
+    public void getChars(int index, int start, int end, char[] dst, int dstBegin) {
+        int offset = offsets[index];
+        if (bytes != null) {
+            for (int i = start; i < end; i++) {
+                dst[dstBegin++] = (char) (bytes.get(offset + i) & 0xFF);
+            }
+        } else {
+            System.arraycopy(chars, offset + start, dst, dstBegin, end - start);
+        }
+    }
+
+    public String[] toStrings() {
+        String[] lines = new String[size];
+        for (int i = 0; i < size; i++) {
+            lines[i] = getLine(i);
+        }
+        return lines;
+    }
+
+    /**
+     * The lines in the order, e.g. {@link LinePermutation#getOrder()}.
+     */
+    public String join(int[] order) {
+        int length = 0;
+        for (int index : order) {
+            length += offsets[index + 1] - offsets[index];
+        }
+        int position = 0;
+        if (bytes != null) {
+            byte[] joined = new byte[length];
+            for (int index : order) {
+                int lineLength = offsets[index + 1] - offsets[index];
+                copyBytes(offsets[index], joined, position, lineLength);
+                position += lineLength;
+            }
+            return new String(joined, StandardCharsets.ISO_8859_1);
+        } else {
+            char[] joined = new char[length];
+            for (int index : order) {
+                int lineLength = offsets[index + 1] - offsets[index];
+                System.arraycopy(chars, offsets[index], joined, position, lineLength);
+                position += lineLength;
+            }
+            return new String(joined);
+        }
+    }
+
+    private void copyBytes(int start, byte[] dst, int dstBegin, int length) {
+        // a view, the position of the shared buffer is left alone
+        ByteBuffer source = bytes.duplicate();
+        source.position(start);
+        source.get(dst, dstBegin, length);
+    }
+
+    ByteBuffer getBytes() {
+        return bytes;
+    }
+
+    int getStart(int index) {
+        return offsets[index];
+    }
+
+    int getEnd(int index) {
+        return offsets[index + 1];
+    }
+
+    /**
+     * For each line the index of the first line equal to it, the line itself
+     * if there is none. Ignoring case the lines are equal like
+     * <code>String.equalsIgnoreCase</code>.
+     */
+    int[] findDuplicates(boolean matchCase) {
+        int[] representatives = new int[size];
+        // open addressing, the slots hold the line index + 1
+        int[] table = new int[Integer.highestOneBit(Math.max(1, size) * 2 - 1) * 2];
+        int mask = table.length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = hash(i, matchCase) & mask;
+            representatives[i] = i;
+            while (table[slot] != 0) {
+                int other = table[slot] - 1;
+                if (equal(other, i, matchCase)) {
+                    representatives[i] = other;
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (representatives[i] == i) {
+                table[slot] = i + 1;
+            }
+        }
+        return representatives;
+    }
+
+    private int hash(int index, boolean matchCase) {
+        int hash = 0;
+        for (int i = offsets[index], end = offsets[index + 1]; i < end; i++) {
+            hash = 31 * hash + charAt(i, matchCase);
+        }
+        // spread the bits for the power of two table
+        return hash ^ (hash >>> 16);
+    }
+
+    private boolean equal(int index1, int index2, boolean matchCase) {
+        int start1 = offsets[index1];
+        int start2 = offsets[index2];
+        int length = offsets[index1 + 1] - start1;
+        if (length != offsets[index2 + 1] - start2) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (charAt(start1 + i, matchCase) != charAt(start2 + i, matchCase)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The char at the offset, folded like
+     * <code>String.CASE_INSENSITIVE_ORDER</code> if not
+     * <code>matchCase</code>.
+     */
+    private char charAt(int offset, boolean matchCase) {
+        if (bytes != null) {
+            byte b = bytes.get(offset);
+            return matchCase ? (char) (b & 0xFF) : Latin1Collation.fold(b);
+        }
+        char c = chars[offset];
+        return matchCase ? c : Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Compare the lines like <code>String.compareTo</code> or, if
+     * <code>matchCase</code> is false, like
+     * <code>String.CASE_INSENSITIVE_ORDER</code>. Only for Latin-1 lines.
+     */
+    int compareChars(int index1, int index2, boolean matchCase) {
+        int start1 = offsets[index1];
+        int start2 = offsets[index2];
+        int length1 = offsets[index1 + 1] - start1;
+        int length2 = offsets[index2 + 1] - start2;
+        for (int i = 0, length = Math.min(length1, length2); i < length; i++) {
+            int c1 = matchCase ? bytes.get(start1 + i) & 0xFF : Latin1Collation.fold(bytes.get(start1 + i));
+            int c2 = matchCase ? bytes.get(start2 + i) & 0xFF : Latin1Collation.fold(bytes.get(start2 + i));
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+        return length1 - length2;
+    }
+
+    /**
+     * Collects text into a {@link LineArena}, splitting it after each
+     * <code>'\n'</code>.
+     */
+    public static final class Builder {
+
+        private byte[] bytes;
+        private final ByteBuffer buffer;
+        private boolean overflow;
+        private char[] chars;
+        private int length;
+        private int[] offsets;
+        private int size;
+
+        /**
+         * @param length the expected number of chars
+         * @param lines the expected number of lines
+         */
+        public Builder(int length, int lines) {
+            this.bytes = new byte[Math.max(16, length)];
+            this.buffer = null;
+            this.offsets = new int[Math.max(16, lines + 1)];
+        }
+
+        /**
+         * Store the bytes in the buffer, e.g. a direct or memory mapped one,
+         * from its index 0 on. The buffer does not grow and only holds
+         * Latin-1 text, see {@link #build()}.
+         *
+         * @param lines the expected number of lines
+         */
+        public Builder(ByteBuffer buffer, int lines) {
+            this.buffer = buffer;
+            this.offsets = new int[Math.max(16, lines + 1)];
+        }
+
+        /**
+         * A builder storing the bytes in a temporary file mapped into
+         * memory, for text too large for the heap. The file is deleted right
+         * away where the platform allows it, otherwise when the VM exits; its
+         * space is freed once the mapping is collected.
+         *
+         * @param length the number of chars
+         * @param lines the expected number of lines
+         */
+        public static Builder mapped(int length, int lines) throws IOException {
+            File file = File.createTempFile("linetools-lines", ".tmp"); // NOI18N
+            try (RandomAccessFile out = new RandomAccessFile(file, "rw")) { // NOI18N
+                // the mapping stays valid after the file is closed
+                return new Builder(out.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length), lines);
+            } finally {
+                if (!file.delete()) {
+                    file.deleteOnExit();
+                }
+            }
+        }
+
+        public Builder append(char[] text, int offset, int count) {
+            if (buffer != null) {
+                overflow |= length + count > buffer.limit();
+            } else {
+                ensureCapacity(length + count);
+            }
+            for (int i = offset, end = offset + count; i < end && !overflow; i++) {
+                char c = text[i];
+                if (chars != null) {
+                    chars[length++] = c;
+                } else if (c <= 0xFF) {
+                    if (buffer != null) {
+                        buffer.put(length++, (byte) c);
+                    } else {
+                        bytes[length++] = (byte) c;
+                    }
+                } else if (buffer != null) {
+                    overflow = true;
+                    break;
+                } else {
+                    // store chars from now on
+                    chars = new char[bytes.length];
+                    for (int j = 0; j < length; j++) {
+                        chars[j] = (char) (bytes[j] & 0xFF);
+                    }
+                    bytes = null;
+                    chars[length++] = c;
+                }
+                if (c == '\n') {
+                    endLine();
+                }
+            }
+            return this;
+        }
+
+        private void ensureCapacity(int capacity) {
+            int current = chars != null ? chars.length : bytes.length;
+            if (capacity > current) {
+                int grown = Math.max(capacity, current + (current >> 1));
+                if (chars != null) {
+                    chars = Arrays.copyOf(chars, grown);
+                } else {
+                    bytes = Arrays.copyOf(bytes, grown);
+                }
+            }
+        }
+
+        private void endLine() {
+            if (size + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length + (offsets.length >> 1));
+            }
+            offsets[++size] = length;
+        }
+
+        /**
+         * The lines, text after the last <code>'\n'</code> is the last line.
+         *
+         * @return null if the text did not fit into the buffer of
+         * {@link #Builder(ByteBuffer, int)}, it is not Latin-1 or longer than
+         * the buffer
+         */
+        public LineArena build() {
+            if (overflow) {
+                return null;
+            }
+            if (offsets[size] < length) {
+                endLine();
+            }
+            ByteBuffer stored = buffer != null ? buffer : bytes != null ? ByteBuffer.wrap(bytes) : null;
+            return new LineArena(stored, chars, offsets, size);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.engine;
+
+import java.util.Arrays;
+
+/**
+ * Where each line went when lines were sorted, kept small enough to be held
+ * by an undo manager. The index each line got is stored as the zig-zag
+ * varint of its difference to the index of the line before it, so nearly
+ * sorted input takes about a byte per line. Removed duplicates that equal
+ * the line kept for them share its index, the others are kept as text.
+ */
+public final class LinePermutation {
+
+    private final int size;
+    private final int sortedSize;
+    private final byte[] deltas;
+    // the indices of the removed lines that differ from the line kept for them
+    private final int[] removedIndices;
+    private final String[] removedLines;
+
+    private LinePermutation(int size, int sortedSize, byte[] deltas, int[] removedIndices, String[] removedLines) {
+        this.size = size;
+        this.sortedSize = sortedSize;
+        this.deltas = deltas;
+        this.removedIndices = removedIndices;
+        this.removedLines = removedLines;
+    }
+
+    /**
+     * @param positions the index each line has in the sorted lines
+     * @param removed the lines dropped as duplicates that differ from the
+     * line kept for them, null for the others
+     */
+    static LinePermutation create(int[] positions, int sortedSize, String[] removed) {
+        byte[] deltas = new byte[positions.length + 16];
+        int length = 0;
+        int removedCount = 0;
+        int previous = 0;
+        for (int i = 0; i < positions.length; i++) {
+            int delta = positions[i] - previous;
+            int zigZag = (delta << 1) ^ (delta >> 31);
+            if (deltas.length - length < 5) {
+                deltas = Arrays.copyOf(deltas, deltas.length * 2);
+            }
+            while ((zigZag & ~0x7F) != 0) {
+                deltas[length++] = (byte) ((zigZag & 0x7F) | 0x80);
+                zigZag >>>= 7;
+            }
+            deltas[length++] = (byte) zigZag;
+            previous = positions[i];
+            if (removed[i] != null) {
+                removedCount++;
+            }
+        }
+        int[] removedIndices = new int[removedCount];
+        String[] removedLines = new String[removedCount];
+        for (int i = 0, j = 0; j < removedCount; i++) {
+            if (removed[i] != null) {
+                removedIndices[j] = i;
+                removedLines[j] = removed[i];
+                j++;
+            }
+        }
+        return new LinePermutation(positions.length, sortedSize, Arrays.copyOf(deltas, length), removedIndices, removedLines);
+    }
+
+    /**
+     * The number of lines before sorting.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * The number of lines after sorting.
+     */
+    public int getSortedSize() {
+        return sortedSize;
+    }
+
+    /**
+     * The bytes the permutation holds on to, not counting the text of the
+     * removed lines.
+     */
+    public long getByteSize() {
+        return deltas.length + 4L * removedIndices.length;
+    }
+
+    /**
+     * The index each line has in the sorted lines.
+     */
+    private int[] getPositions() {
+        int[] positions = new int[size];
+        int previous = 0;
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            int zigZag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = deltas[offset++];
+                zigZag |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            previous += (zigZag >>> 1) ^ -(zigZag & 1);
+            positions[i] = previous;
+        }
+        return positions;
+    }
+
+    /**
+     * Sort the lines again.
+     *
+     * @param lines the lines before sorting
+     * @return the lines after sorting
+     */
+    public String[] apply(String[] lines) {
+        if (lines.length != size) {
+            throw new IllegalArgumentException("Expected " + size + " lines, got " + lines.length); // NOI18N
+        }
+        int[] positions = getPositions();
+        String[] sorted = new String[sortedSize];
+        for (int i = 0; i < size; i++) {
+            if (sorted[positions[i]] == null && !isRemoved(i)) {
+                sorted[positions[i]] = lines[i];
+            }
+        }
+        return sorted;
+    }
+
+    /**
+     * The index of the line at each position of the sorted lines, applying
+     * the permutation without the text of the lines.
+     */
+    public int[] getOrder() {
+        int[] positions = getPositions();
+        int[] order = new int[sortedSize];
+        Arrays.fill(order, -1);
+        for (int i = 0; i < size; i++) {
+            if (order[positions[i]] == -1 && !isRemoved(i)) {
+                order[positions[i]] = i;
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Undo the sort.
+     *
+     * @param sorted the lines after sorting
+     * @return the lines before sorting
+     */
+    public String[] restore(String[] sorted) {
+        if (sorted.length != sortedSize) {
+            throw new IllegalArgumentException("Expected " + sortedSize + " lines, got " + sorted.length); // NOI18N
+        }
+        int[] positions = getPositions();
+        String[] lines = new String[size];
+        for (int i = 0; i < size; i++) {
+            lines[i] = sorted[positions[i]];
+        }
+        for (int j = 0; j < removedIndices.length; j++) {
+            lines[removedIndices[j]] = removedLines[j];
+        }
+        return lines;
+    }
+
+    private boolean isRemoved(int index) {
+        return Arrays.binarySearch(removedIndices, index) >= 0;
+    }
+}
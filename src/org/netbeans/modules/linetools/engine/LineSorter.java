@@ -0,0 +1,333 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.engine;
+
+import java.nio.ByteBuffer;
+import java.text.CollationKey;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Sorts lines held in memory.
+ */
+public final class LineSorter {
+
+    private LineSorter() {
+    }
+
+    /**
+     * Sort the lines, removing the duplicates first if the options say so.
+     *
+     * @return the sorted lines, the array itself if no duplicates were
+     * removed
+     */
+    public static String[] sort(String[] lines, SortOptions options) {
+        if (options.isRemoveDuplicates()) {
+            lines = removeDuplicates(lines, options.isMatchCase());
+        }
+        int[] indices = new int[lines.length];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+        sort(indices, getCollationKeys(lines, options), getKeyComparator(options));
+        String[] sorted = new String[lines.length];
+        for (int i = 0; i < indices.length; i++) {
+            sorted[i] = lines[indices[i]];
+        }
+        System.arraycopy(sorted, 0, lines, 0, lines.length);
+        return lines;
+    }
+
+    /**
+     * Sort the lines like {@link #sort(String[], SortOptions)}, comparing
+     * them with the collator instead of computing their keys first. Slower,
+     * but the sort needs no more heap than the lines.
+     */
+    public static String[] sortCompact(String[] lines, SortOptions options) {
+        if (options.isRemoveDuplicates()) {
+            lines = removeDuplicates(lines, options.isMatchCase());
+        }
+        Arrays.sort(lines, options.getComparator());
+        return lines;
+    }
+
+    /**
+     * The collation key of each line. Comparing lines with the collator
+     * allocates on every compare, the keys are computed once per line.
+     */
+    private static CollationKey[] getCollationKeys(String[] lines, SortOptions options) {
+        CollationKey[] keys = new CollationKey[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            keys[i] = options.getCollationKey(lines[i]);
+        }
+        return keys;
+    }
+
+    private static Comparator<CollationKey> getKeyComparator(SortOptions options) {
+        return options.isDescending() ? Collections.<CollationKey>reverseOrder() : Comparator.<CollationKey>naturalOrder();
+    }
+
+    /**
+     * Sort the lines like {@link #sort(String[], SortOptions)}, but only
+     * record where each of them goes. Lines equal for the sort keep their
+     * order, the first of a group of duplicates is the one kept.
+     */
+    public static LinePermutation permutation(String[] lines, SortOptions options) {
+        int[] kept = new int[lines.length];
+        for (int i = 0; i < kept.length; i++) {
+            kept[i] = i;
+        }
+        // the index of the line kept for each line
+        int[] representatives = null;
+        if (options.isRemoveDuplicates()) {
+            // the same order as the set removeDuplicates collects into
+            Comparator<String> duplicates = options.isMatchCase()
+                    ? Comparator.<String>naturalOrder() : String.CASE_INSENSITIVE_ORDER;
+            sort(kept, lines, duplicates);
+            representatives = new int[lines.length];
+            int keptCount = 0;
+            for (int i = 0; i < kept.length; i++) {
+                int index = kept[i];
+                if (keptCount > 0 && duplicates.compare(lines[kept[keptCount - 1]], lines[index]) == 0) {
+                    representatives[index] = kept[keptCount - 1];
+                } else {
+                    representatives[index] = index;
+                    kept[keptCount++] = index;
+                }
+            }
+            kept = Arrays.copyOf(kept, keptCount);
+        }
+        CollationKey[] keys = new CollationKey[lines.length];
+        for (int index : kept) {
+            keys[index] = options.getCollationKey(lines[index]);
+        }
+        sort(kept, keys, getKeyComparator(options));
+
+        int[] positions = new int[lines.length];
+        for (int i = 0; i < kept.length; i++) {
+            positions[kept[i]] = i;
+        }
+        String[] removed = new String[lines.length];
+        if (representatives != null) {
+            for (int i = 0; i < lines.length; i++) {
+                int representative = representatives[i];
+                if (representative != i) {
+                    positions[i] = positions[representative];
+                    if (!lines[i].equals(lines[representative])) {
+                        removed[i] = lines[i];
+                    }
+                }
+            }
+        }
+        return LinePermutation.create(positions, kept.length, removed);
+    }
+
+    /**
+     * Sort the lines like {@link #permutation(String[], SortOptions)},
+     * comparing and hashing their bytes instead of their strings.
+     *
+     * @return null if the lines are not Latin-1, sort
+     * {@link LineArena#toStrings()} instead
+     */
+    public static LinePermutation permutation(final LineArena lines, SortOptions options) {
+        if (!lines.isLatin1()) {
+            return null;
+        }
+        final ByteBuffer bytes = lines.getBytes();
+        final Latin1Collation collation = Latin1Collation.get(options.isMatchCase());
+        final boolean matchCase = options.isMatchCase();
+        final boolean descending = options.isDescending();
+        final boolean removeDuplicates = options.isRemoveDuplicates();
+        int size = lines.size();
+
+        int[] representatives = null;
+        int[] kept;
+        if (removeDuplicates) {
+            representatives = lines.findDuplicates(matchCase);
+            int keptCount = 0;
+            for (int i = 0; i < size; i++) {
+                if (representatives[i] == i) {
+                    keptCount++;
+                }
+            }
+            kept = new int[keptCount];
+            for (int i = 0, j = 0; i < size; i++) {
+                if (representatives[i] == i) {
+                    kept[j++] = i;
+                }
+            }
+        } else {
+            kept = new int[size];
+            for (int i = 0; i < size; i++) {
+                kept[i] = i;
+            }
+        }
+        sort(kept, new IndexComparator() {
+            @Override
+            public int compare(int index1, int index2) {
+                int result = collation.compare(bytes, lines.getStart(index1), lines.getEnd(index1),
+                        lines.getStart(index2), lines.getEnd(index2));
+                if (descending) {
+                    result = -result;
+                }
+                if (result == 0 && removeDuplicates) {
+                    // the string sort keeps equal lines in the order of
+                    // the set the duplicates are removed with
+                    result = lines.compareChars(index1, index2, matchCase);
+                }
+                return result;
+            }
+        });
+
+        int[] positions = new int[size];
+        for (int i = 0; i < kept.length; i++) {
+            positions[kept[i]] = i;
+        }
+        String[] removed = new String[size];
+        if (representatives != null) {
+            for (int i = 0; i < size; i++) {
+                int representative = representatives[i];
+                if (representative != i) {
+                    positions[i] = positions[representative];
+                    if (!matchCase && lines.compareChars(i, representative, true) != 0) {
+                        removed[i] = lines.getLine(i);
+                    }
+                }
+            }
+        }
+        return LinePermutation.create(positions, kept.length, removed);
+    }
+
+    /**
+     * Count the equal lines, like <code>sort | uniq -c | sort -nr</code>:
+     * each distinct line once, prefixed with its count and a tab, the most
+     * frequent first. Lines counted equally often keep the order they first
+     * occur in. Unless <code>matchCase</code>, a line stands for the lines
+     * equal to it ignoring case.
+     */
+    public static String[] countByFrequency(LineArena lines, boolean matchCase) {
+        int size = lines.size();
+        int[] representatives = lines.findDuplicates(matchCase);
+        int[] counts = new int[size];
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (counts[representatives[i]]++ == 0) {
+                distinct++;
+            }
+        }
+        // the count descending and then the index, sorted as primitives
+        long[] keys = new long[distinct];
+        for (int i = 0, j = 0; i < size; i++) {
+            if (representatives[i] == i) {
+                keys[j++] = (long) (Integer.MAX_VALUE - counts[i]) << 32 | i;
+            }
+        }
+        Arrays.sort(keys);
+        String[] counted = new String[distinct];
+        for (int j = 0; j < distinct; j++) {
+            int index = (int) keys[j];
+            counted[j] = counts[index] + "\t" + lines.getLine(index); // NOI18N
+        }
+        return counted;
+    }
+
+    private interface IndexComparator {
+
+        int compare(int index1, int index2);
+    }
+
+    /**
+     * Stable merge sort of line indices by their lines or line keys.
+     */
+    private static <T> void sort(int[] result, final T[] lines, final Comparator<? super T> comparator) {
+        sort(result, new IndexComparator() {
+            @Override
+            public int compare(int index1, int index2) {
+                return comparator.compare(lines[index1], lines[index2]);
+            }
+        });
+    }
+
+    /**
+     * Stable merge sort of line indices.
+     */
+    private static void sort(int[] result, IndexComparator comparator) {
+        int[] indices = result;
+        int[] buffer = new int[indices.length];
+        for (int width = 1; width < indices.length; width *= 2) {
+            for (int start = 0; start < indices.length; start += 2 * width) {
+                int middle = Math.min(start + width, indices.length);
+                int end = Math.min(start + 2 * width, indices.length);
+                if (middle == end || comparator.compare(indices[middle - 1], indices[middle]) <= 0) {
+                    // already in order
+                    System.arraycopy(indices, start, buffer, start, end - start);
+                    continue;
+                }
+                int left = start;
+                int right = middle;
+                for (int i = start; i < end; i++) {
+                    if (right == end || (left < middle
+                            && comparator.compare(indices[left], indices[right]) <= 0)) {
+                        buffer[i] = indices[left++];
+                    } else {
+                        buffer[i] = indices[right++];
+                    }
+                }
+            }
+            int[] swap = indices;
+            indices = buffer;
+            buffer = swap;
+        }
+        if (indices != result) {
+            System.arraycopy(indices, 0, result, 0, indices.length);
+        }
+    }
+
+    /**
+     * The lines without duplicates, in the order of the lines ignoring case
+     * if <code>matchCase</code> is false, otherwise in their natural order.
+     * The first of a group of duplicates is the one kept.
+     */
+    public static String[] removeDuplicates(String[] lines, boolean matchCase) {
+        SortedSet<String> uniqifySet = new TreeSet<>(matchCase ? null : String.CASE_INSENSITIVE_ORDER);
+        uniqifySet.addAll(Arrays.asList(lines));
+        return uniqifySet.toArray(new String[0]);
+    }
+}
@@ -1,4 +1,4 @@
-package org.netbeans.modules.linetools.actions;
+package org.netbeans.modules.linetools.engine;
 
 import java.util.Comparator;
 
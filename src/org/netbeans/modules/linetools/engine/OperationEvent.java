@@ -0,0 +1,117 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.engine;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for one editor operation, see
+ * {@link OperationProfile}. Only load this class when
+ * {@link FlightRecorder#isAvailable()}.
+ */
+@Name("org.netbeans.modules.linetools.Operation") // NOI18N
+@Label("Line Tools Operation")
+@Category({"NetBeans", "Line Tools"})
+@Description("Line and char counts and phase timings of a sort, filter, cycle or zap")
+final class OperationEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Options")
+    String options;
+
+    @Label("Lines")
+    long lines;
+
+    @Label("Characters")
+    long characters;
+
+    @Label("Lock Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    long lockWait;
+
+    @Label("Extract Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long extractTime;
+
+    @Label("Compute Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long computeTime;
+
+    @Label("Apply Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long applyTime;
+
+    /**
+     * @return the begun event, or null if the event is disabled
+     */
+    static Object start() {
+        OperationEvent event = new OperationEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @param options their <code>toString()</code> is called only if the
+     * event is written, may be null
+     */
+    static void commit(Object begun, OperationProfile profile, Object options) {
+        OperationEvent event = (OperationEvent) begun;
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.operation = profile.getOperation();
+        event.options = options == null ? "" : options.toString(); // NOI18N
+        event.lines = profile.getLines();
+        event.characters = profile.getChars();
+        event.lockWait = profile.getNanos(OperationProfile.Phase.LOCK_WAIT);
+        event.extractTime = profile.getNanos(OperationProfile.Phase.EXTRACT);
+        event.computeTime = profile.getNanos(OperationProfile.Phase.COMPUTE);
+        event.applyTime = profile.getNanos(OperationProfile.Phase.APPLY);
+        event.commit();
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.engine;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Line and char counts and phase timings of one editor operation. The
+ * operation marks the end of each phase with {@link #phase}, the time since
+ * the previous mark is added to that phase:
+ * <pre>
+ * OperationProfile profile = OperationProfile.start("sort", options);
+ * doc.runAtomic(new Runnable() {
+ *     public void run() {
+ *         profile.phase(OperationProfile.Phase.LOCK_WAIT);
+ *         ...
+ *     }
+ * });
+ * profile.commit();
+ * </pre>
+ * {@link #commit} writes a summary to the IDE log (level <code>FINE</code>),
+ * emits a <code>org.netbeans.modules.linetools.Operation</code> event
+ * when running with JDK Flight Recorder and adds the latencies of sorting and
+ * applying to the {@link OperationStatistics}.
+ */
+public final class OperationProfile {
+
+    private static final Logger LOG = Logger.getLogger(OperationProfile.class.getName());
+
+    public enum Phase {
+        /** Waiting for the document lock. */
+        LOCK_WAIT,
+        /** Reading the text from the document. */
+        EXTRACT,
+        /** Sorting, filtering or searching the text. */
+        COMPUTE,
+        /** Writing the result to the document or moving the carets. */
+        APPLY
+    }
+
+    private final String operation;
+    private final Object options;
+    private final Object event;
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private final long start;
+    private long mark;
+    private long lines;
+    private long chars;
+    private boolean failed;
+
+    private OperationProfile(String operation, Object options) {
+        this.operation = operation;
+        this.options = options;
+        // the event is begun here so its duration covers the operation
+        this.event = FlightRecorder.isAvailable() ? OperationEvent.start() : null;
+        this.start = System.nanoTime();
+        this.mark = start;
+    }
+
+    /**
+     * Start profiling an operation.
+     *
+     * @param operation the name of the operation, e.g. <code>sort</code>
+     * @param options the options the operation runs with, their
+     * <code>toString()</code> is recorded when {@link #commit} writes the
+     * log record or the event, may be null
+     */
+    public static OperationProfile start(String operation, Object options) {
+        return new OperationProfile(operation, options);
+    }
+
+    /**
+     * Add the time since the previous mark to the phase.
+     */
+    public void phase(Phase phase) {
+        long now = System.nanoTime();
+        phaseNanos[phase.ordinal()] += now - mark;
+        mark = now;
+    }
+
+    /**
+     * Set the mark without adding the time since the previous one to a
+     * phase, e.g. after waiting for user input.
+     */
+    public void skip() {
+        mark = System.nanoTime();
+    }
+
+    /**
+     * Add the lines and chars the operation processed.
+     */
+    public void add(long lines, long chars) {
+        this.lines += lines;
+        this.chars += chars;
+    }
+
+    /**
+     * Mark the operation as failed, it counts as an error in the
+     * {@link OperationStatistics}.
+     */
+    public void error() {
+        failed = true;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getLines() {
+        return lines;
+    }
+
+    public long getChars() {
+        return chars;
+    }
+
+    public long getNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * Log the profile and emit the flight recorder event.
+     */
+    public void commit() {
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.log(Level.FINE, "{0}", this); // NOI18N
+        }
+        if (event != null) {
+            OperationEvent.commit(event, this, options);
+        }
+        switch (operation) {
+            case "sort": // NOI18N
+                record(OperationStatistics.Metric.SORT, mark - start);
+                record(OperationStatistics.Metric.APPLY, getNanos(Phase.APPLY));
+                break;
+            case "dedupe": // NOI18N
+                record(OperationStatistics.Metric.DEDUPE, mark - start);
+                record(OperationStatistics.Metric.APPLY, getNanos(Phase.APPLY));
+                break;
+            case "count": // NOI18N
+                record(OperationStatistics.Metric.COUNT, mark - start);
+                record(OperationStatistics.Metric.APPLY, getNanos(Phase.APPLY));
+                break;
+            case "filter": // NOI18N
+                // the filter processes record themselves; the time the
+                // user took to enter the command is skipped
+                record(OperationStatistics.Metric.FILTER, getPhasesNanos());
+                record(OperationStatistics.Metric.APPLY, getNanos(Phase.APPLY));
+                break;
+            case "cycle": // NOI18N
+            case "cycleTokens": // NOI18N
+                record(OperationStatistics.Metric.CYCLE, getPhasesNanos());
+                record(OperationStatistics.Metric.APPLY, getNanos(Phase.APPLY));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private long getPhasesNanos() {
+        long nanos = 0;
+        for (long phase : phaseNanos) {
+            nanos += phase;
+        }
+        return nanos;
+    }
+
+    private void record(OperationStatistics.Metric metric, long nanos) {
+        if (failed) {
+            OperationStatistics.recordError(metric, lines);
+        } else {
+            OperationStatistics.record(metric, lines, nanos);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return operation + " " + (options == null ? "" : options) // NOI18N
+                + ": lines=" + lines // NOI18N
+                + ", chars=" + chars // NOI18N
+                + ", lockWait=" + millis(getNanos(Phase.LOCK_WAIT)) + "ms" // NOI18N
+                + ", extract=" + millis(getNanos(Phase.EXTRACT)) + "ms" // NOI18N
+                + ", compute=" + millis(getNanos(Phase.COMPUTE)) + "ms" // NOI18N
+                + ", apply=" + millis(getNanos(Phase.APPLY)) + "ms"; // NOI18N
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.engine;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.openide.ErrorManager;
+import org.openide.modules.OnStart;
+import org.openide.modules.OnStop;
+
+/**
+ * Latency histograms of the line operations by selection size, exposed as
+ * the {@link OperationStatisticsMXBean} for long running telemetry. The
+ * module registers the bean on start.
+ * <p>
+ * Recording neither allocates nor locks, so the statistics are always on.
+ */
+public final class OperationStatistics implements OperationStatisticsMXBean {
+
+    public static final String OBJECT_NAME = "org.netbeans.modules.linetools:type=OperationStatistics"; // NOI18N
+
+    public enum Metric {
+        /** A sort of the selected lines, from the request to the document being updated. */
+        SORT(true),
+        /** A sort removing duplicate lines. */
+        DEDUPE(true),
+        /** Counting the equal lines and sorting them by their count. */
+        COUNT(true),
+        /** A filter of the selected lines, through all of its processes. */
+        FILTER(true),
+        /** Cycling chars or tokens. */
+        CYCLE(true),
+        /** Starting a filter process, part of {@link #FILTER_RUN}. */
+        FILTER_SPAWN(false),
+        /** A filter process, from starting it to its exit, part of {@link #FILTER}. */
+        FILTER_RUN(false),
+        /** Writing the result of an operation to the document, part of the operation. */
+        APPLY(false);
+
+        private final boolean invocation;
+
+        private Metric(boolean invocation) {
+            this.invocation = invocation;
+        }
+
+        /**
+         * Whether the metric is an operation the user invoked and adds to the
+         * invocation and error counts, rather than a part of one.
+         */
+        public boolean isInvocation() {
+            return invocation;
+        }
+    }
+
+    public enum Size {
+        LINES_1("1-99"), // NOI18N
+        LINES_100("100-999"), // NOI18N
+        LINES_1K("1000-9999"), // NOI18N
+        LINES_10K("10000-99999"), // NOI18N
+        LINES_100K("100000-"); // NOI18N
+
+        private final String displayName;
+
+        private Size(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        public static Size of(long lines) {
+            if (lines < 100) {
+                return LINES_1;
+            } else if (lines < 1000) {
+                return LINES_100;
+            } else if (lines < 10000) {
+                return LINES_1K;
+            } else if (lines < 100000) {
+                return LINES_10K;
+            }
+            return LINES_100K;
+        }
+    }
+
+    private static final Metric[] METRICS = Metric.values();
+    private static final Size[] SIZES = Size.values();
+
+    private static final OperationStatistics DEFAULT = new OperationStatistics();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[METRICS.length * SIZES.length];
+    private final AtomicLongArray errors = new AtomicLongArray(METRICS.length * SIZES.length);
+
+    OperationStatistics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public static OperationStatistics getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Record a successful invocation.
+     *
+     * @param lines the number of selected lines
+     */
+    public static void record(Metric metric, long lines, long nanos) {
+        DEFAULT.histograms[slot(metric, lines)].record(nanos);
+    }
+
+    /**
+     * Record a failed invocation. Its latency is not recorded.
+     */
+    public static void recordError(Metric metric, long lines) {
+        DEFAULT.errors.incrementAndGet(slot(metric, lines));
+    }
+
+    private static int slot(Metric metric, long lines) {
+        return metric.ordinal() * SIZES.length + Size.of(lines).ordinal();
+    }
+
+    public LatencyHistogram getHistogram(Metric metric, Size size) {
+        return histograms[metric.ordinal() * SIZES.length + size.ordinal()];
+    }
+
+    @Override
+    public long getInvocationCount() {
+        long count = 0;
+        for (int i = 0; i < histograms.length; i++) {
+            if (METRICS[i / SIZES.length].isInvocation()) {
+                count += histograms[i].getCount();
+            }
+        }
+        return count + getErrorCount();
+    }
+
+    @Override
+    public long getErrorCount() {
+        long count = 0;
+        for (int i = 0; i < errors.length(); i++) {
+            if (METRICS[i / SIZES.length].isInvocation()) {
+                count += errors.get(i);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public List<LatencySummary> getLatencies() {
+        List<LatencySummary> latencies = new ArrayList<>();
+        for (Metric metric : METRICS) {
+            for (Size size : SIZES) {
+                int slot = metric.ordinal() * SIZES.length + size.ordinal();
+                LatencyHistogram histogram = histograms[slot];
+                long errorCount = errors.get(slot);
+                if (histogram.getCount() == 0 && errorCount == 0) {
+                    continue;
+                }
+                latencies.add(new LatencySummary(metric.name(), size.getDisplayName(),
+                        histogram.getCount() + errorCount, errorCount,
+                        histogram.getPercentile(50), histogram.getPercentile(90),
+                        histogram.getPercentile(99), histogram.getMax()));
+            }
+        }
+        return latencies;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i].reset();
+            errors.set(i, 0);
+        }
+    }
+
+    @OnStart
+    public static final class Register implements Runnable {
+
+        @Override
+        public void run() {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            try {
+                ObjectName name = new ObjectName(OBJECT_NAME);
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(DEFAULT, name);
+                }
+            } catch (JMException ex) {
+                ErrorManager.getDefault().notify(ErrorManager.INFORMATIONAL, ex);
+            }
+        }
+    }
+
+    @OnStop
+    public static final class Unregister implements Runnable {
+
+        @Override
+        public void run() {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            try {
+                ObjectName name = new ObjectName(OBJECT_NAME);
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            } catch (JMException ex) {
+                ErrorManager.getDefault().notify(ErrorManager.INFORMATIONAL, ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.engine;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Runs a filter command over the selected lines. In parallel mode the lines
+ * are split into contiguous shards, each shard is piped through its own
+ * {@link FilterProcess} and the outputs are concatenated in shard order. This
+ * gives the same result as a single process only for line-independent
+ * commands like <code>sed</code> or <code>tr</code>.
+ */
+public final class ShardedFilter {
+
+    // interrupts the shards that are cancelled when another one failed
+    private static final RequestProcessor RP = new RequestProcessor(ShardedFilter.class.getName(),
+            Runtime.getRuntime().availableProcessors(), true);
+
+    private ShardedFilter() {
+    }
+
+    /**
+     * Pipe the lines through the filter command.
+     *
+     * @param filterCommand the command and its arguments
+     * @param lines the input lines without line terminators
+     * @param shards number of filter processes to run concurrently
+     * @param statistics receives the statistics of all filter processes
+     * @return the STDOUT lines of all shards in order, or <code>null</code>
+     * if any of the processes did not exit normally
+     * @throws IOException if a filter process could not be started or fed
+     */
+    public static String[] filter(final String[] filterCommand, final String[] lines, int shards,
+            FilterStatistics statistics) throws IOException {
+        int numberOfShards = Math.max(1, Math.min(shards, lines.length));
+        if (numberOfShards == 1) {
+            return filter(filterCommand, lines, 0, lines.length, statistics);
+        }
+
+        final FilterStatistics[] shardStatistics = new FilterStatistics[numberOfShards];
+        List<Future<String[]>> futures = new ArrayList<>(numberOfShards);
+        for (int i = 0; i < numberOfShards; i++) {
+            shardStatistics[i] = new FilterStatistics();
+            final FilterStatistics s = shardStatistics[i];
+            final int from = (int) ((long) lines.length * i / numberOfShards);
+            final int to = (int) ((long) lines.length * (i + 1) / numberOfShards);
+            futures.add(RP.submit(new Callable<String[]>() {
+                @Override
+                public String[] call() throws IOException {
+                    return filter(filterCommand, lines, from, to, s);
+                }
+            }));
+        }
+
+        try {
+            String[][] outputs = new String[numberOfShards][];
+            int numberOfOutputLines = 0;
+            for (int i = 0; i < numberOfShards; i++) {
+                outputs[i] = futures.get(i).get();
+                if (outputs[i] == null) {
+                    return null;
+                }
+                numberOfOutputLines += outputs[i].length;
+            }
+
+            String[] output = new String[numberOfOutputLines];
+            int index = 0;
+            for (String[] shardOutput : outputs) {
+                System.arraycopy(shardOutput, 0, output, index, shardOutput.length);
+                index += shardOutput.length;
+            }
+            return output;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException(ex.getCause());
+        } finally {
+            for (Future<String[]> future : futures) {
+                future.cancel(true);
+            }
+            // also of the failed and cancelled shards, as far as recorded
+            for (FilterStatistics s : shardStatistics) {
+                statistics.add(s);
+            }
+        }
+    }
+
+    private static String[] filter(String[] filterCommand, String[] lines, int from, int to,
+            FilterStatistics statistics) throws IOException {
+        FilterProcess filterProcess = new FilterProcess(filterCommand, to - from);
+        try {
+            try (PrintWriter in = filterProcess.exec()) {
+                for (int i = from; i < to; i++) {
+                    in.println(lines[i]);
+                }
+            }
+            int exitStatus = filterProcess.waitFor();
+            if (exitStatus == 0) {
+                return filterProcess.getStdOutOutput();
+            }
+            return null;
+        } finally {
+            statistics.add(filterProcess.getStatistics());
+            filterProcess.destroy();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.engine;
+
+import java.text.CollationKey;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * How lines are sorted. Each instance compares with its own collator, whose
+ * compare is synchronized: create one per sort rather than sharing one
+ * between sorts that run concurrently.
+ */
+public final class SortOptions {
+
+    private final boolean descending;
+    private final boolean matchCase;
+    private final boolean removeDuplicates;
+    private final CustomComparator comparator;
+    private final Comparator<String> sortComparator;
+
+    public SortOptions(boolean descending, boolean matchCase, boolean removeDuplicates) {
+        this.descending = descending;
+        this.matchCase = matchCase;
+        this.removeDuplicates = removeDuplicates;
+        this.comparator = new CustomComparator(Locale.ENGLISH, matchCase);
+        this.sortComparator = descending ? Collections.reverseOrder(comparator) : comparator;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public boolean isMatchCase() {
+        return matchCase;
+    }
+
+    public boolean isRemoveDuplicates() {
+        return removeDuplicates;
+    }
+
+    /**
+     * The comparator lines are sorted with.
+     */
+    public Comparator<String> getComparator() {
+        return sortComparator;
+    }
+
+    /**
+     * The key of the line. Keys compare like their lines do with
+     * {@link #getComparator()}, except that they are always ascending.
+     */
+    public CollationKey getCollationKey(String line) {
+        return comparator.getCollationKey(line);
+    }
+
+    /**
+     * Whether the two lines are duplicates of each other.
+     */
+    public boolean isDuplicate(String line1, String line2) {
+        return matchCase ? line1.equals(line2) : line1.equalsIgnoreCase(line2);
+    }
+
+    @Override
+    public String toString() {
+        return "SortOptions[descending=" + descending + ", matchCase=" + matchCase // NOI18N
+                + ", removeDuplicates=" + removeDuplicates + "]"; // NOI18N
+    }
+}
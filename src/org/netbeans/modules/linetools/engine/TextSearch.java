@@ -0,0 +1,248 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.engine;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A precompiled string or regular expression zap target. Instances are
+ * immutable and can be reused for any number of searches.
+ */
+public abstract class TextSearch {
+
+    /**
+     * The longest regular expression match that a search in overlapping
+     * windows is guaranteed to find whole.
+     */
+    public static final int MAX_REGEX_MATCH_LENGTH = 4096;
+
+    /**
+     * Literal search using a Boyer-Moore-Horspool skip table.
+     *
+     * @param pattern the non-empty string to search for
+     * @param matchCase
+     * @return
+     */
+    public static TextSearch literal(String pattern, boolean matchCase) {
+        return new Literal(pattern, matchCase);
+    }
+
+    /**
+     * Regular expression search.
+     *
+     * @param regex
+     * @param matchCase
+     * @return
+     * @throws java.util.regex.PatternSyntaxException if the regular
+     * expression is invalid
+     */
+    public static TextSearch regex(String regex, boolean matchCase) {
+        return new Regex(Pattern.compile(regex, matchCase ? 0 : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE));
+    }
+
+    /**
+     * Find the <code>times</code>-th non overlapping match that lies
+     * completely inside <code>[from, to)</code>.
+     *
+     * @param forward count from <code>from</code>, otherwise from
+     * <code>to</code>
+     * @param match receives the start and end of the match
+     * @return whether there was such a match
+     */
+    public abstract boolean find(CharSequence text, int from, int to, int times, boolean forward, int[] match);
+
+    /**
+     * The length of the longest match. A search in windows that overlap by
+     * one char less finds each match in at least one window.
+     *
+     * @return the length of the literal, {@link #MAX_REGEX_MATCH_LENGTH} for
+     * a regular expression
+     */
+    public abstract int getMaxMatchLength();
+
+    /**
+     * Lower case with a fast path for ASCII.
+     */
+    public static char toLowerCase(char c) {
+        if (c < 128) {
+            return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(c);
+    }
+
+    private static final class Literal extends TextSearch {
+
+        private static final int SKIP_TABLE_SIZE = 256;
+
+        private final char[] pattern;
+        private final boolean matchCase;
+        // shift for the last char of a window, scanning forward
+        private final int[] skip = new int[SKIP_TABLE_SIZE];
+        // shift for the first char of a window, scanning backward
+        private final int[] reverseSkip = new int[SKIP_TABLE_SIZE];
+
+        Literal(String pattern, boolean matchCase) {
+            this.matchCase = matchCase;
+            this.pattern = new char[pattern.length()];
+            for (int i = 0; i < this.pattern.length; i++) {
+                this.pattern[i] = fold(pattern.charAt(i));
+            }
+            int m = this.pattern.length;
+            // chars sharing a slot get the smallest shift of them, which
+            // keeps the search correct
+            for (int i = 0; i < SKIP_TABLE_SIZE; i++) {
+                skip[i] = m;
+                reverseSkip[i] = m;
+            }
+            for (int i = 0; i < m - 1; i++) {
+                skip[this.pattern[i] & (SKIP_TABLE_SIZE - 1)] = m - 1 - i;
+            }
+            for (int i = m - 1; i > 0; i--) {
+                reverseSkip[this.pattern[i] & (SKIP_TABLE_SIZE - 1)] = i;
+            }
+        }
+
+        @Override
+        public boolean find(CharSequence text, int from, int to, int times, boolean forward, int[] match) {
+            int m = pattern.length;
+            if (m == 0 || times <= 0) {
+                return false;
+            }
+            int count = times;
+            if (forward) {
+                int i = from;
+                while (i + m <= to) {
+                    if (matchesAt(text, i)) {
+                        if (--count == 0) {
+                            match[0] = i;
+                            match[1] = i + m;
+                            return true;
+                        }
+                        i += m;
+                    } else {
+                        i += skip[fold(text.charAt(i + m - 1)) & (SKIP_TABLE_SIZE - 1)];
+                    }
+                }
+            } else {
+                int i = to - m;
+                while (i >= from) {
+                    if (matchesAt(text, i)) {
+                        if (--count == 0) {
+                            match[0] = i;
+                            match[1] = i + m;
+                            return true;
+                        }
+                        i -= m;
+                    } else {
+                        i -= reverseSkip[fold(text.charAt(i)) & (SKIP_TABLE_SIZE - 1)];
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int getMaxMatchLength() {
+            return pattern.length;
+        }
+
+        private boolean matchesAt(CharSequence text, int i) {
+            for (int j = pattern.length - 1; j >= 0; j--) {
+                if (fold(text.charAt(i + j)) != pattern[j]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private char fold(char c) {
+            return matchCase ? c : toLowerCase(c);
+        }
+    }
+
+    private static final class Regex extends TextSearch {
+
+        private final Pattern pattern;
+
+        Regex(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        @Override
+        public boolean find(CharSequence text, int from, int to, int times, boolean forward, int[] match) {
+            if (times <= 0) {
+                return false;
+            }
+            Matcher matcher = pattern.matcher(text);
+            matcher.region(from, to);
+            if (forward) {
+                int count = times;
+                while (matcher.find()) {
+                    if (matcher.end() > matcher.start() && --count == 0) {
+                        match[0] = matcher.start();
+                        match[1] = matcher.end();
+                        return true;
+                    }
+                }
+                return false;
+            }
+            // remember the last matches in a ring buffer
+            int[] starts = new int[times];
+            int[] ends = new int[times];
+            int found = 0;
+            while (matcher.find()) {
+                if (matcher.end() > matcher.start()) {
+                    starts[found % times] = matcher.start();
+                    ends[found % times] = matcher.end();
+                    found++;
+                }
+            }
+            if (found < times) {
+                return false;
+            }
+            match[0] = starts[found % times];
+            match[1] = ends[found % times];
+            return true;
+        }
+
+        @Override
+        public int getMaxMatchLength() {
+            return MAX_REGEX_MATCH_LENGTH;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups of tokens that cycle into each other, e.g. <code>true false</code>
+ * or <code>INFO WARN ERROR</code>. All tokens of all groups are compiled into
+ * one Aho-Corasick automaton, so the text is scanned once no matter how many
+ * groups there are.
+ * <p>
+ * Matches are the leftmost longest ones and do not overlap. A token that
+ * starts or ends with an identifier char only matches at an identifier
+ * boundary, so <code>true</code> does not match in <code>construe</code>.
+ * <p>
+ * The groups are given one group per line, the tokens separated by white
+ * space.
+ */
+public final class TokenCycleTable implements TextTransform {
+
+    private static volatile TokenCycleTable last;
+
+    private final String spec;
+    private final String[] tokens;
+    // the index of the token each token cycles to
+    private final int[] next;
+    private final int maxLength;
+
+    // the trie, the children of each node are sorted by label
+    private char[][] labels;
+    private int[][] children;
+    private int[] childCount;
+    private int nodeCount;
+    // the token ending at the node, -1 if none
+    private int[] output;
+    private int[] fail;
+    // the next node on the fail chain with an output, 0 if none
+    private int[] outputLink;
+
+    private TokenCycleTable(String spec) {
+        this.spec = spec;
+        List<String> tokenList = new ArrayList<>();
+        List<Integer> nextList = new ArrayList<>();
+        Map<String, Integer> seen = new HashMap<>();
+        for (String line : spec.split("\n")) { // NOI18N
+            String[] group = line.trim().split("\\s+"); // NOI18N
+            List<String> distinct = new ArrayList<>();
+            for (String token : group) {
+                // a token belongs to the first group it is listed in
+                if (token.length() > 0 && !seen.containsKey(token) && !distinct.contains(token)) {
+                    distinct.add(token);
+                }
+            }
+            if (distinct.size() < 2) {
+                continue;
+            }
+            int first = tokenList.size();
+            for (int i = 0; i < distinct.size(); i++) {
+                seen.put(distinct.get(i), tokenList.size());
+                tokenList.add(distinct.get(i));
+                nextList.add(first + (i + 1) % distinct.size());
+            }
+        }
+        tokens = tokenList.toArray(new String[tokenList.size()]);
+        next = new int[tokens.length];
+        int max = 0;
+        for (int i = 0; i < tokens.length; i++) {
+            next[i] = nextList.get(i);
+            max = Math.max(max, tokens[i].length());
+        }
+        maxLength = max;
+        build();
+    }
+
+    /**
+     * The table for the groups in <code>spec</code>. The last table is cached.
+     */
+    public static TokenCycleTable get(String spec) {
+        TokenCycleTable table = last;
+        if (table == null || !table.spec.equals(spec)) {
+            table = new TokenCycleTable(spec);
+            last = table;
+        }
+        return table;
+    }
+
+    public boolean isEmpty() {
+        return tokens.length == 0;
+    }
+
+    /**
+     * The token that replaces the token with the index.
+     */
+    String getReplacement(int token) {
+        return tokens[next[token]];
+    }
+
+    /**
+     * Find the tokens in <code>[from, to)</code>.
+     *
+     * @return the start, end and token index of each match, in text order
+     */
+    int[] find(CharSequence text, int from, int to) {
+        if (tokens.length == 0) {
+            return new int[0];
+        }
+        int[] matches = new int[3 * 16];
+        int matchCount = 0;
+        // the longest candidate for each start that is still in reach of a
+        // later match, indexed by start modulo maxLength
+        int[] bestLength = new int[maxLength];
+        int[] bestToken = new int[maxLength];
+        int nextFree = from;
+        int node = 0;
+        for (int i = from; i < to; i++) {
+            node = step(node, text.charAt(i));
+            for (int n = output[node] != -1 ? node : outputLink[node]; n != 0; n = outputLink[n]) {
+                int token = output[n];
+                int length = tokens[token].length();
+                int start = i + 1 - length;
+                if (start >= from && isBoundary(text, from, to, start, i + 1)) {
+                    int slot = (start - from) % maxLength;
+                    if (length > bestLength[slot]) {
+                        bestLength[slot] = length;
+                        bestToken[slot] = token;
+                    }
+                }
+            }
+            // no later match can start at or before this start any more
+            int start = i + 1 - maxLength;
+            if (start >= from) {
+                int slot = (start - from) % maxLength;
+                if (bestLength[slot] > 0) {
+                    if (start >= nextFree) {
+                        if (matchCount + 3 > matches.length) {
+                            matches = Arrays.copyOf(matches, matches.length * 2);
+                        }
+                        matches[matchCount++] = start;
+                        matches[matchCount++] = start + bestLength[slot];
+                        matches[matchCount++] = bestToken[slot];
+                        nextFree = start + bestLength[slot];
+                    }
+                    bestLength[slot] = 0;
+                }
+            }
+        }
+        for (int start = Math.max(from, to + 1 - maxLength); start < to; start++) {
+            int slot = (start - from) % maxLength;
+            if (bestLength[slot] > 0 && start >= nextFree) {
+                if (matchCount + 3 > matches.length) {
+                    matches = Arrays.copyOf(matches, matches.length * 2);
+                }
+                matches[matchCount++] = start;
+                matches[matchCount++] = start + bestLength[slot];
+                matches[matchCount++] = bestToken[slot];
+                nextFree = start + bestLength[slot];
+            }
+        }
+        return Arrays.copyOf(matches, matchCount);
+    }
+
+    /**
+     * The replacements of the tokens in <code>[from, to)</code>.
+     */
+    @Override
+    public EditScript edits(CharSequence text, int from, int to) {
+        int[] matches = find(text, from, to);
+        if (matches.length == 0) {
+            return EditScript.EMPTY;
+        }
+        EditScript.Collector edits = new EditScript.Collector();
+        for (int i = 0; i < matches.length; i += 3) {
+            edits.add(matches[i], matches[i + 1], getReplacement(matches[i + 2]));
+        }
+        return edits.toScript();
+    }
+
+    /**
+     * Cycle all tokens in the text.
+     *
+     * @return the cycled text, or the text itself if there was no token
+     */
+    public String cycle(String text) {
+        EditScript edits = edits(text, 0, text.length());
+        return edits.isEmpty() ? text : edits.apply(text);
+    }
+
+    private static boolean isBoundary(CharSequence text, int from, int to, int start, int end) {
+        if (Character.isJavaIdentifierPart(text.charAt(start)) && start > from
+                && Character.isJavaIdentifierPart(text.charAt(start - 1))) {
+            return false;
+        }
+        return !(Character.isJavaIdentifierPart(text.charAt(end - 1)) && end < to
+                && Character.isJavaIdentifierPart(text.charAt(end)));
+    }
+
+    private int step(int node, char c) {
+        while (true) {
+            int child = child(node, c);
+            if (child != -1) {
+                return child;
+            }
+            if (node == 0) {
+                return 0;
+            }
+            node = fail[node];
+        }
+    }
+
+    private int child(int node, char c) {
+        int index = Arrays.binarySearch(labels[node], 0, childCount[node], c);
+        return index < 0 ? -1 : children[node][index];
+    }
+
+    private void build() {
+        int capacity = 1;
+        for (String token : tokens) {
+            capacity += token.length();
+        }
+        labels = new char[capacity][];
+        children = new int[capacity][];
+        childCount = new int[capacity];
+        output = new int[capacity];
+        fail = new int[capacity];
+        outputLink = new int[capacity];
+        Arrays.fill(output, -1);
+        nodeCount = 1;
+        labels[0] = new char[0];
+        children[0] = new int[0];
+
+        for (int t = 0; t < tokens.length; t++) {
+            int node = 0;
+            for (int i = 0; i < tokens[t].length(); i++) {
+                char c = tokens[t].charAt(i);
+                int child = child(node, c);
+                if (child == -1) {
+                    child = addChild(node, c);
+                }
+                node = child;
+            }
+            output[node] = t;
+        }
+
+        // breadth first, the fail link of a node is computed from the fail
+        // link of its parent
+        int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < childCount[0]; i++) {
+            queue[tail++] = children[0][i];
+        }
+        while (head < tail) {
+            int node = queue[head++];
+            for (int i = 0; i < childCount[node]; i++) {
+                int child = children[node][i];
+                char c = labels[node][i];
+                int f = fail[node];
+                int target;
+                while (true) {
+                    target = child(f, c);
+                    if (target != -1 || f == 0) {
+                        break;
+                    }
+                    f = fail[f];
+                }
+                fail[child] = target == -1 ? 0 : target;
+                outputLink[child] = output[fail[child]] != -1 ? fail[child] : outputLink[fail[child]];
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    private int addChild(int node, char c) {
+        int count = childCount[node];
+        if (count == labels[node].length) {
+            labels[node] = Arrays.copyOf(labels[node], Math.max(2, count * 2));
+            children[node] = Arrays.copyOf(children[node], Math.max(2, count * 2));
+        }
+        int index = -Arrays.binarySearch(labels[node], 0, count, c) - 1;
+        System.arraycopy(labels[node], index, labels[node], index + 1, count - index);
+        System.arraycopy(children[node], index, children[node], index + 1, count - index);
+        int child = nodeCount++;
+        labels[node][index] = c;
+        children[node][index] = child;
+        childCount[node] = count + 1;
+        labels[child] = new char[0];
+        children[child] = new int[0];
+        return child;
+    }
+}
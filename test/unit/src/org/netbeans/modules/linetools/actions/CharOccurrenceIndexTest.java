@@ -0,0 +1,148 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.actions;
+
+import java.util.Random;
+import javax.swing.JEditorPane;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.PlainDocument;
+import org.netbeans.junit.NbTestCase;
+
+/**
+ * Checks the lookups of the index against a plain scan of the line, and that
+ * edits reach it through its document listener.
+ */
+public class CharOccurrenceIndexTest extends NbTestCase {
+
+    private static final int LENGTH = 2 * CharOccurrenceIndex.MIN_LINE_LENGTH;
+
+    public CharOccurrenceIndexTest(String name) {
+        super(name);
+    }
+
+    public void testFind() throws Exception {
+        Random random = new Random(1);
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < LENGTH; i++) {
+            // a few frequent chars, some rare ones outside of Latin-1
+            line.append(random.nextInt(50) == 0 ? (char) ('α' + random.nextInt(3)) : "aAbB,".charAt(random.nextInt(5)));
+        }
+        Document doc = new PlainDocument();
+        doc.insertString(0, "first\n" + line + "\nlast\n", null);
+        Element lineElement = doc.getDefaultRootElement().getElement(1);
+        CharOccurrenceIndex index = CharOccurrenceIndex.get(doc);
+        for (int i = 0; i < 2000; i++) {
+            char c = "aAb,xαΑ".charAt(random.nextInt(7));
+            boolean matchCase = random.nextBoolean();
+            boolean forward = random.nextBoolean();
+            int times = 1 + random.nextInt(4);
+            int start = lineElement.getStartOffset() + random.nextInt(LENGTH);
+            int end = start + random.nextInt(lineElement.getEndOffset() - start);
+            assertEquals(c + " " + matchCase + " " + forward + " " + times + " [" + start + ", " + end + ")",
+                    scan(doc, start, end, c, matchCase, times, forward),
+                    index.find(lineElement, start, end, c, matchCase, times, forward));
+        }
+    }
+
+    public void testInvalidatedByEdits() throws Exception {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < LENGTH; i++) {
+            line.append('a');
+        }
+        Document doc = new PlainDocument();
+        doc.insertString(0, "first\n" + line + "\n", null);
+        Element lineElement = doc.getDefaultRootElement().getElement(1);
+        int lineStart = lineElement.getStartOffset();
+        CharOccurrenceIndex index = CharOccurrenceIndex.get(doc);
+        assertEquals(-1, index.find(lineElement, lineStart, lineElement.getEndOffset(), ',', true, 1, true));
+
+        // an insert into the indexed line
+        doc.insertString(lineStart + 100, ",", null);
+        assertEquals(lineStart + 100, index.find(lineElement, lineStart, lineElement.getEndOffset(), ',', true, 1, true));
+        // an edit before the line moves it, the positions are relative
+        doc.insertString(0, "x", null);
+        lineStart = lineElement.getStartOffset();
+        assertEquals(lineStart + 100, index.find(lineElement, lineStart, lineElement.getEndOffset(), ',', true, 1, true));
+        // a removal from the line
+        doc.remove(lineStart + 100, 1);
+        assertEquals(-1, index.find(lineElement, lineStart, lineElement.getEndOffset(), ',', true, 1, true));
+        // splitting the line replaces its element
+        doc.insertString(lineStart + 10, ",\n", null);
+        Element splitElement = doc.getDefaultRootElement().getElement(1);
+        assertEquals(lineStart + 10, index.find(splitElement, lineStart, splitElement.getEndOffset(), ',', true, 1, true));
+    }
+
+    public void testOnlyWhenEnabled() throws Exception {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < LENGTH; i++) {
+            line.append('a');
+        }
+        line.append(',');
+        boolean indexLongLines = LineOperations.isIndexLongLines();
+        try {
+            for (boolean enabled : new boolean[]{false, true}) {
+                LineOperations.setIndexLongLines(enabled);
+                JTextComponent textComponent = new JEditorPane();
+                textComponent.setDocument(new PlainDocument());
+                textComponent.getDocument().insertString(0, line + "\n", null);
+                textComponent.setCaretPosition(0);
+                LineOperations.toChar(textComponent, ',', true, 1);
+                // after the char
+                assertEquals(LENGTH + 1, textComponent.getCaret().getDot());
+                assertEquals(enabled, textComponent.getDocument().getProperty(CharOccurrenceIndex.class) != null);
+            }
+        } finally {
+            LineOperations.setIndexLongLines(indexLongLines);
+        }
+    }
+
+    private static int scan(Document doc, int start, int end, char c, boolean matchCase, int times, boolean forward)
+            throws Exception {
+        String text = doc.getText(start, end - start);
+        int found = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int j = forward ? i : text.length() - 1 - i;
+            char ch = text.charAt(j);
+            if ((matchCase ? ch == c : Character.toLowerCase(ch) == Character.toLowerCase(c)) && ++found == times) {
+                return start + j;
+            }
+        }
+        return -1;
+    }
+}
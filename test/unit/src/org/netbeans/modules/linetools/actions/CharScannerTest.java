@@ -0,0 +1,116 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.actions;
+
+import java.util.Random;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.PlainDocument;
+import javax.swing.text.Segment;
+import org.netbeans.junit.NbTestCase;
+
+/**
+ * Checks the scans against a plain scan of the text, over chunks and the gap
+ * of the document content, and that the text is never copied.
+ */
+public class CharScannerTest extends NbTestCase {
+
+    public CharScannerTest(String name) {
+        super(name);
+    }
+
+    public void testScanAcrossTheGap() throws Exception {
+        Random random = new Random(1);
+        int length = 3 * CharScanner.CHUNK;
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append("aAb,\n".charAt(random.nextInt(5)));
+        }
+        PartialReturnDocument doc = new PartialReturnDocument();
+        doc.insertString(0, text.toString(), null);
+        for (int i = 0; i < 500; i++) {
+            // an edit moves the gap of the content to where it happened
+            int gap = random.nextInt(doc.getLength());
+            doc.insertString(gap, ",", null);
+            doc.remove(gap, 1);
+
+            char c = "aAb,x".charAt(random.nextInt(5));
+            boolean matchCase = random.nextBoolean();
+            int times = 1 + random.nextInt(CharScanner.CHUNK / 4);
+            int start = random.nextInt(length);
+            int end = start + random.nextInt(length - start + 1);
+            String message = c + " " + matchCase + " " + times + " [" + start + ", " + end + ") gap " + gap;
+            int forward = scan(doc, start, end, c, matchCase, times, true);
+            int backward = scan(doc, start, end, c, matchCase, times, false);
+            doc.checking = true;
+            try {
+                assertEquals(message, forward, CharScanner.forward(doc, start, end, c, matchCase, times));
+                assertEquals(message, backward, CharScanner.backward(doc, start, end, c, matchCase, times));
+            } finally {
+                doc.checking = false;
+            }
+        }
+    }
+
+    private static int scan(Document doc, int start, int end, char c, boolean matchCase, int times, boolean forward)
+            throws BadLocationException {
+        String text = doc.getText(start, end - start);
+        int found = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int j = forward ? i : text.length() - 1 - i;
+            char ch = text.charAt(j);
+            if ((matchCase ? ch == c : Character.toLowerCase(ch) == Character.toLowerCase(c)) && ++found == times) {
+                return start + j;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Fails a read that would copy the text while checking.
+     */
+    private static final class PartialReturnDocument extends PlainDocument {
+
+        boolean checking;
+
+        @Override
+        public void getText(int offset, int length, Segment txt) throws BadLocationException {
+            assertTrue("the text is copied", !checking || txt.isPartialReturn());
+            super.getText(offset, length, txt);
+        }
+    }
+}
@@ -40,14 +40,46 @@
  */
 package org.netbeans.modules.linetools.actions;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
 import javax.swing.JEditorPane;
+import javax.swing.event.UndoableEditEvent;
+import javax.swing.event.UndoableEditListener;
 import javax.swing.text.JTextComponent;
+import javax.swing.undo.UndoManager;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.netbeans.editor.BaseDocument;
 import org.netbeans.junit.NbTestCase;
+import org.netbeans.modules.linetools.engine.AdmissionControl;
+import org.netbeans.modules.linetools.engine.ExternalSorter;
+import org.netbeans.modules.linetools.engine.FileSorter;
+import org.netbeans.modules.linetools.engine.FilterStatistics;
+import org.netbeans.modules.linetools.engine.LatencyHistogram;
+import org.netbeans.modules.linetools.engine.OperationProfile;
+import org.netbeans.modules.linetools.engine.OperationStatistics;
+import org.netbeans.modules.linetools.engine.SortOptions;
+import org.netbeans.modules.linetools.engine.TextSearch;
+import org.netbeans.modules.linetools.engine.TokenCycleTable;
 
 public class LineOperationsTest extends NbTestCase {
 
@@ -400,6 +432,399 @@ public class LineOperationsTest extends NbTestCase {
         testSortLinesDesc(text, expected);
     }
 
+    public void testToChar_01() throws Exception {
+        JTextComponent textComponent = createTextComponent("abc,def,ghi\nxyz,\n");
+        textComponent.setCaretPosition(0);
+        LineOperations.toChar(textComponent, ',', true, 2);
+        assertEquals(0, textComponent.getCaret().getMark());
+        assertEquals(8, textComponent.getCaret().getDot());
+        // does not leave the line
+        LineOperations.toChar(textComponent, ',', true, 1);
+        assertEquals(8, textComponent.getCaret().getDot());
+    }
+
+    public void testFromChar_01() throws Exception {
+        JTextComponent textComponent = createTextComponent("aBc,abc,ABC\n");
+        textComponent.setCaretPosition(11);
+        LineOperations.fromChar(textComponent, 'b', true, 1);
+        assertEquals(5, textComponent.getCaret().getDot());
+        textComponent.setCaretPosition(11);
+        LineOperations.fromChar(textComponent, 'b', false, 3);
+        assertEquals(1, textComponent.getCaret().getDot());
+    }
+
+    public void testZapAcrossLines_01() throws Exception {
+        int zapDistance = LineOperations.getZapDistance();
+        try {
+            JTextComponent textComponent = createTextComponent("a,b\nc,d\ne,f\n");
+            textComponent.setCaretPosition(0);
+            LineOperations.toChar(textComponent, ',', true, 2, true);
+            assertEquals(6, textComponent.getCaret().getDot());
+            textComponent.setCaretPosition(12);
+            LineOperations.fromChar(textComponent, ',', true, 3, true);
+            assertEquals(1, textComponent.getCaret().getDot());
+            // the second comma is past the zap distance
+            LineOperations.setZapDistance(4);
+            textComponent.setCaretPosition(0);
+            LineOperations.toChar(textComponent, ',', true, 2, true);
+            assertEquals(0, textComponent.getCaret().getDot());
+            textComponent.setCaretPosition(12);
+            LineOperations.fromChar(textComponent, ',', true, 2, true);
+            assertEquals(12, textComponent.getCaret().getDot());
+            LineOperations.fromChar(textComponent, ',', true, 1, true);
+            assertEquals(9, textComponent.getCaret().getDot());
+
+            // a comma more than a chunk away, on both sides of the caret
+            StringBuilder lines = new StringBuilder();
+            while (lines.length() < 2 * LineOperations.ZAP_CHUNK) {
+                lines.append("abcdefghijklmnopqrstuvwxyz\n");
+            }
+            textComponent = createTextComponent("," + lines + lines + ",");
+            int middle = 1 + lines.length();
+            int last = 1 + 2 * lines.length();
+            // the distance is counted from the char after the caret forward
+            // and from the caret backward
+            LineOperations.setZapDistance(lines.length() - 1);
+            textComponent.setCaretPosition(middle);
+            LineOperations.toChar(textComponent, ',', true, 1, true);
+            assertEquals(middle, textComponent.getCaret().getDot());
+            LineOperations.setZapDistance(lines.length());
+            LineOperations.fromChar(textComponent, ',', true, 1, true);
+            assertEquals(middle, textComponent.getCaret().getDot());
+            LineOperations.toChar(textComponent, ',', true, 1, true);
+            assertEquals(last + 1, textComponent.getCaret().getDot());
+            LineOperations.setZapDistance(lines.length() + 1);
+            textComponent.setCaretPosition(middle);
+            LineOperations.fromChar(textComponent, ',', true, 1, true);
+            assertEquals(0, textComponent.getCaret().getDot());
+        } finally {
+            LineOperations.setZapDistance(zapDistance);
+        }
+    }
+
+    public void testZapText_01() throws Exception {
+        JTextComponent textComponent = createTextComponent("foo bar FOO baz foo\n");
+        textComponent.setCaretPosition(0);
+        LineOperations.zapText(textComponent, TextSearch.literal("foo", true), 1, false, true, true);
+        assertEquals(19, textComponent.getCaret().getDot());
+        textComponent.setCaretPosition(0);
+        LineOperations.zapText(textComponent, TextSearch.literal("foo", false), 1, false, true, false);
+        assertEquals(8, textComponent.getCaret().getDot());
+        textComponent.setCaretPosition(19);
+        LineOperations.zapText(textComponent, TextSearch.regex("ba[rz]", true), 2, false, false, false);
+        assertEquals(4, textComponent.getCaret().getDot());
+    }
+
+    public void testZapTextAcrossLines_01() throws Exception {
+        // matches crossing the edges of the first and second window
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 3 * LineOperations.ZAP_CHUNK) {
+            text.append("abcdefghijklmnopqrstuvwxyz\n");
+        }
+        int first = 1 + LineOperations.ZAP_CHUNK - 3;
+        int second = first + LineOperations.ZAP_CHUNK - TextSearch.MAX_REGEX_MATCH_LENGTH / 2;
+        text.replace(first, first + 6, "needle");
+        text.replace(second, second + 6, "neeedl");
+        JTextComponent textComponent = createTextComponent(text.toString());
+        textComponent.setCaretPosition(0);
+        LineOperations.zapText(textComponent, TextSearch.literal("needle", true), 1, true, true, true);
+        assertEquals(first + 6, textComponent.getCaret().getDot());
+        textComponent.setCaretPosition(0);
+        LineOperations.zapText(textComponent, TextSearch.regex("ne+dle?", true), 2, true, true, false);
+        assertEquals(second, textComponent.getCaret().getDot());
+        textComponent.setCaretPosition(text.length());
+        LineOperations.zapText(textComponent, TextSearch.regex("ne+dle?", true), 2, true, false, false);
+        assertEquals(first, textComponent.getCaret().getDot());
+        textComponent.setCaretPosition(text.length());
+        LineOperations.zapText(textComponent, TextSearch.literal("NEEEDL", false), 1, true, false, true);
+        assertEquals(second + 6, textComponent.getCaret().getDot());
+        // a greedy match is not cut at the edge of a window
+        int greedy = LineOperations.ZAP_CHUNK - 3;
+        text.replace(greedy, greedy + 9, "qeeeeeeee");
+        textComponent = createTextComponent(text.toString());
+        textComponent.setCaretPosition(0);
+        LineOperations.zapText(textComponent, TextSearch.regex("qe+", true), 1, true, true, true);
+        assertEquals(greedy + 9, textComponent.getCaret().getDot());
+    }
+
+    public void testCycle_01() throws Exception {
+        JTextComponent textComponent = createTextComponent("a/b/c\nd/e\n");
+        textComponent.setCaretPosition(3);
+        LineOperations.cycle(textComponent, "/\\");
+        assertEquals("a\\b\\c\nd/e\n", textComponent.getText());
+        assertEquals(0, textComponent.getCaret().getDot());
+        textComponent.setCaretPosition(7);
+        LineOperations.cycle(textComponent, "/\\");
+        assertEquals("a\\b\\c\nd\\e\n", textComponent.getText());
+        assertEquals(6, textComponent.getCaret().getDot());
+    }
+
+    public void testCycleTokens_01() throws Exception {
+        TokenCycleTable table = TokenCycleTable.get("true false\nINFO WARN ERROR\n== !=\n");
+        assertEquals("false && construe\n", table.cycle("true && construe\n"));
+        assertEquals("[WARN] a != b [ERROR]", table.cycle("[INFO] a == b [WARN]"));
+        JTextComponent textComponent = createTextComponent("INFO x\nERROR true\n");
+        textComponent.setCaretPosition(9);
+        LineOperations.cycleTokens(textComponent, table);
+        assertEquals("INFO x\nINFO false\n", textComponent.getText());
+        assertEquals(7, textComponent.getCaret().getDot());
+    }
+
+    public void testSortFile_01() throws Exception {
+        File file = new File(getWorkDir(), "lines.txt");
+        Files.write(file.toPath(), "c\nb\r\na\nB\nb".getBytes(StandardCharsets.UTF_8));
+        long runBytes = ExternalSorter.getRunBytes();
+        try {
+            // force spilled runs
+            ExternalSorter.setRunBytes(4);
+            FileSorter.sort(file, StandardCharsets.UTF_8, new SortOptions(false, false, true));
+        } finally {
+            ExternalSorter.setRunBytes(runBytes);
+        }
+        assertEquals("a\nb\r\nc\n", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        if (Files.getFileAttributeView(file.toPath(), PosixFileAttributeView.class) != null) {
+            // the sorted file keeps the permissions of the original
+            Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rwxr-x---"); // NOI18N
+            Files.write(file.toPath(), "b\na\n".getBytes(StandardCharsets.UTF_8));
+            Files.setPosixFilePermissions(file.toPath(), permissions);
+            assertTrue(FileSorter.sort(file, StandardCharsets.UTF_8, new SortOptions(false, false, true)));
+            assertEquals(permissions, Files.getPosixFilePermissions(file.toPath()));
+        }
+    }
+
+    public void testBatchCycle_01() throws Exception {
+        File file = new File(getWorkDir(), "paths.txt");
+        Files.write(file.toPath(), "a/b\r\nc\\d\ne".getBytes(StandardCharsets.UTF_8));
+        assertTrue(BatchRunner.cycle("/\\").apply(file, StandardCharsets.UTF_8));
+        assertEquals("a\\b\r\nc/d\ne", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        Files.write(file.toPath(), "e\n".getBytes(StandardCharsets.UTF_8));
+        assertFalse(BatchRunner.cycle("/\\").apply(file, StandardCharsets.UTF_8));
+    }
+
+    public void testBatchFilter_01() throws Exception {
+        File file = new File(getWorkDir(), "filtered.txt");
+        // fewer lines, with the line terminators of the input
+        Files.write(file.toPath(), "b\r\na\r\nb\r\nc".getBytes(StandardCharsets.UTF_8));
+        assertTrue(BatchRunner.filter(new String[]{"sort", "-u"}).apply(file, StandardCharsets.UTF_8));
+        assertEquals("a\r\nb\r\nc", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        Files.write(file.toPath(), "b\na\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(BatchRunner.filter(new String[]{"sort"}).apply(file, StandardCharsets.UTF_8));
+        assertEquals("a\nb\n", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        // as many lines, each with the terminator of its input line
+        Files.write(file.toPath(), "b\r\na\nc".getBytes(StandardCharsets.UTF_8));
+        assertTrue(BatchRunner.filter(new String[]{"sort"}).apply(file, StandardCharsets.UTF_8));
+        assertEquals("a\r\nb\nc", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        assertFalse(BatchRunner.filter(new String[]{"cat"}).apply(file, StandardCharsets.UTF_8));
+    }
+
+    public void testBatchFilterStatistics_01() throws Exception {
+        File file = new File(getWorkDir(), "unfiltered.txt");
+        Files.write(file.toPath(), "b\na\n".getBytes(StandardCharsets.UTF_8));
+        final List<LogRecord> records = new ArrayList<>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Logger log = Logger.getLogger(FilterStatistics.class.getName());
+        log.addHandler(handler);
+        try {
+            BatchRunner.filter(new String[]{"linetools-no-such-command"}).apply(file, StandardCharsets.UTF_8);
+            fail("the command does not exist");
+        } catch (IOException ex) {
+            // the statistics are logged anyway
+            assertEquals(1, records.size());
+            assertEquals(Level.INFO, records.get(0).getLevel());
+        } finally {
+            log.removeHandler(handler);
+        }
+    }
+
+    public void testSortLinesUndo_01() throws Exception {
+        String text = ""
+                + "b\n"
+                + "A\n"
+                + "c\n"
+                + "a\n"
+                + "b\n"
+                + "B";
+        JTextComponent textComponent = createTextComponent(text);
+        BaseDocument document = (BaseDocument) textComponent.getDocument();
+        UndoManager undoManager = new UndoManager();
+        document.addUndoableEditListener(undoManager);
+        final List<UndoableEditEvent> events = new ArrayList<>();
+        document.addUndoableEditListener(new UndoableEditListener() {
+            @Override
+            public void undoableEditHappened(UndoableEditEvent e) {
+                events.add(e);
+            }
+        });
+        List<UndoableEditListener> listeners = Arrays.asList(document.getUndoableEditListeners());
+        textComponent.setSelectionStart(0);
+        textComponent.setSelectionEnd(document.getLength());
+        textComponent.getCaret().setSelectionVisible(true);
+        LineOperations.setRemoveDuplicateLines(true);
+        LineOperations.sortLinesAscending(textComponent);
+        String sorted = document.getText(0, document.getLength());
+        assertEquals("A\nb\nc\n", sorted);
+        assertTrue(undoManager.canUndo());
+        undoManager.undo();
+        assertEquals(text, document.getText(0, document.getLength()));
+        undoManager.redo();
+        assertEquals(sorted, document.getText(0, document.getLength()));
+        undoManager.undo();
+        assertEquals(text, document.getText(0, document.getLength()));
+        assertFalse(undoManager.canUndo());
+        // every listener got the sort as one edit, undo and redo record
+        // nothing, and the listeners are left as they were
+        assertEquals(1, events.size());
+        assertEquals(listeners, Arrays.asList(document.getUndoableEditListeners()));
+    }
+
+    public void testSortLinesLatin1_01() throws Exception {
+        // sorted on the bytes, and on strings with a char above 0xFF
+        for (String[] texts : new String[][]{
+            {"b\n\u00e4\nB\na\n\u00c4\n", "a\n\u00e4\n\u00c4\nb\nB\n"},
+            {"z\n\u03b1\n\u00e4\na\n", "a\n\u00e4\nz\n\u03b1\n"}}) {
+            JTextComponent textComponent = createTextComponent(texts[0]);
+            BaseDocument document = (BaseDocument) textComponent.getDocument();
+            UndoManager undoManager = new UndoManager();
+            document.addUndoableEditListener(undoManager);
+            textComponent.setSelectionStart(0);
+            textComponent.setSelectionEnd(document.getLength());
+            textComponent.getCaret().setSelectionVisible(true);
+            LineOperations.sortLinesAscending(textComponent);
+            assertEquals(texts[1], document.getText(0, document.getLength()));
+            undoManager.undo();
+            assertEquals(texts[0], document.getText(0, document.getLength()));
+        }
+    }
+
+    public void testCountLinesByFrequency_01() throws Exception {
+        String[][] cases = {
+            {"false", "b\na\nB\nc\na\nb\n", "3\tb\n2\ta\n1\tc\n"},
+            {"true", "b\na\nB\nc\na\nb\n", "2\tb\n2\ta\n1\tB\n1\tc\n"},
+            // not Latin-1
+            {"false", "\u03b2\n\u0392\nx\n\u03b2\n", "3\t\u03b2\n1\tx\n"}};
+        for (String[] texts : cases) {
+            LineOperations.setMatchCase(Boolean.parseBoolean(texts[0]));
+            JTextComponent textComponent = createTextComponent(texts[1]);
+            BaseDocument document = (BaseDocument) textComponent.getDocument();
+            textComponent.setSelectionStart(0);
+            textComponent.setSelectionEnd(document.getLength());
+            textComponent.getCaret().setSelectionVisible(true);
+            LineOperations.countLinesByFrequency(textComponent);
+            assertEquals(texts[2], document.getText(0, document.getLength()));
+        }
+    }
+
+    public void testSortLinesDocumentOptions_01() throws Exception {
+        JTextComponent textComponent = createTextComponent("b\na\nb\n");
+        BaseDocument document = (BaseDocument) textComponent.getDocument();
+        LineOperationOptions.setDocumentOptions(document, LineOperations.getOptions().withRemoveDuplicateLines(true));
+        textComponent.setSelectionStart(0);
+        textComponent.setSelectionEnd(document.getLength());
+        textComponent.getCaret().setSelectionVisible(true);
+        LineOperations.sortLinesAscending(textComponent);
+        assertFalse(LineOperations.isRemoveDuplicateLines());
+        assertEquals("a\nb\n", document.getText(0, document.getLength()));
+    }
+
+    public void testAdmissionControl_01() throws Exception {
+        long runBytes = ExternalSorter.getRunBytes();
+        try {
+            ExternalSorter.setRunBytes(1 << 20);
+            long lines = 1000000;
+            long chars = 40 * lines;
+            long inMemory = AdmissionControl.estimateSort(lines, chars, AdmissionControl.Strategy.IN_MEMORY);
+            long offHeap = AdmissionControl.estimateSort(lines, chars, AdmissionControl.Strategy.OFF_HEAP);
+            long compact = AdmissionControl.estimateSort(lines, chars, AdmissionControl.Strategy.COMPACT);
+            long external = AdmissionControl.estimateSort(lines, chars, AdmissionControl.Strategy.EXTERNAL);
+            assertTrue(offHeap < external && external < compact && compact < inMemory);
+            assertEquals(AdmissionControl.Strategy.IN_MEMORY, AdmissionControl.forSort(lines, chars, inMemory));
+            assertEquals(AdmissionControl.Strategy.OFF_HEAP, AdmissionControl.forSort(lines, chars, inMemory - 1));
+            assertEquals(AdmissionControl.Strategy.REFUSE, AdmissionControl.forSort(lines, chars, offHeap - 1));
+            // text that is not Latin-1 cannot be sorted off the heap
+            assertEquals(AdmissionControl.Strategy.COMPACT, AdmissionControl.forSort(lines, chars, inMemory - 1, false));
+            assertEquals(AdmissionControl.Strategy.EXTERNAL, AdmissionControl.forSort(lines, chars, compact - 1, false));
+            assertEquals(AdmissionControl.Strategy.REFUSE, AdmissionControl.forSort(lines, chars, external - 1, false));
+            assertEquals(AdmissionControl.Strategy.REFUSE, AdmissionControl.forFilter(lines, chars, 0));
+        } finally {
+            ExternalSorter.setRunBytes(runBytes);
+        }
+    }
+
+    public void testSortLinesStrategies_01() throws Exception {
+        long runBytes = ExternalSorter.getRunBytes();
+        try {
+            // force spilled runs
+            ExternalSorter.setRunBytes(4);
+            for (AdmissionControl.Strategy strategy : new AdmissionControl.Strategy[]{
+                AdmissionControl.Strategy.OFF_HEAP, AdmissionControl.Strategy.COMPACT, AdmissionControl.Strategy.EXTERNAL}) {
+                // the second text is not Latin-1, it is not sorted off the heap
+                for (String[] texts : new String[][]{{"c\nB\na\nb\nd\n", "c\na\nB\nd\n"},
+                    {"c\n\u03b2\na\nb\nd\n", "c\na\nb\n\u03b2\nd\n"}}) {
+                    JTextComponent textComponent = createTextComponent(texts[0]);
+                    BaseDocument document = (BaseDocument) textComponent.getDocument();
+                    UndoManager undoManager = new UndoManager();
+                    document.addUndoableEditListener(undoManager);
+                    textComponent.setSelectionStart(2);
+                    textComponent.setSelectionEnd(8);
+                    textComponent.getCaret().setSelectionVisible(true);
+                    // off the heap undone by the permutation
+                    document.runAtomic(new LineOperations.SortLinesTask(textComponent, new SortOptions(false, false, true),
+                            strategy, strategy == AdmissionControl.Strategy.OFF_HEAP, OperationProfile.start("sort", null)));
+                    assertEquals(strategy.toString(), texts[1], document.getText(0, document.getLength()));
+                    // a single edit
+                    undoManager.undo();
+                    assertEquals(strategy.toString(), texts[0], document.getText(0, document.getLength()));
+                    assertFalse(undoManager.canUndo());
+                }
+            }
+        } finally {
+            ExternalSorter.setRunBytes(runBytes);
+        }
+    }
+
+    public void testOperationStatistics_01() throws Exception {
+        OperationStatistics statistics = OperationStatistics.getDefault();
+        statistics.reset();
+        testSortLinesAsc("b\na\n", "a\nb\n");
+        LatencyHistogram sorts = statistics.getHistogram(OperationStatistics.Metric.SORT, OperationStatistics.Size.LINES_1);
+        assertEquals(1, sorts.getCount());
+        assertTrue(sorts.getPercentile(99) <= sorts.getMax());
+
+        new OperationStatistics.Register().run();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OperationStatistics.OBJECT_NAME);
+            // the apply of the sort is part of it
+            assertEquals(1L, server.getAttribute(name, "InvocationCount"));
+            CompositeData[] latencies = (CompositeData[]) server.getAttribute(name, "Latencies");
+            assertEquals("SORT", latencies[0].get("metric"));
+            assertEquals("1-99", latencies[0].get("size"));
+        } finally {
+            new OperationStatistics.Unregister().run();
+        }
+    }
+
+    private JTextComponent createTextComponent(String text) throws Exception {
+        JTextComponent textComponent = new JEditorPane();
+        BaseDocument document = new BaseDocument(false, "text/plain");
+        textComponent.setDocument(document);
+        document.insertString(0, text, null);
+        return textComponent;
+    }
+
     private void testSortLinesAsc(String text, String expected) throws Exception {
         testSortLines(text, expected, true);
     }
@@ -0,0 +1,230 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.engine;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import org.netbeans.junit.NbTestCase;
+
+/**
+ * Checks how sorting and removing duplicates scale on large synthetic
+ * inputs, so a change that makes them quadratic or allocate on every compare
+ * fails the build. The bounds leave plenty of room for noisy machines: the
+ * times are the best of several runs, and a quadratic sort or an allocation
+ * per compare is off by far more than the slack.
+ */
+public class LineSorterPerformanceTest extends NbTestCase {
+
+    private static final int SMALL = 100000;
+    private static final int LARGE = 1000000;
+
+    private static final SortOptions SORT = new SortOptions(false, false, false);
+    private static final SortOptions SORT_MATCH_CASE = new SortOptions(false, true, false);
+
+    public LineSorterPerformanceTest(String name) {
+        super(name);
+    }
+
+    public void testSortScalesNLogN() throws Exception {
+        String[] small = generate(SMALL, SMALL, 1);
+        String[] large = generate(LARGE, LARGE, 2);
+        // the small input warms up, a sort of the large one takes seconds
+        // and is only run once
+        long smallNanos = bestSortNanos(small, SORT, 4);
+        double ratio = (double) bestSortNanos(large, SORT, 1) / smallNanos;
+        double expected = (double) LARGE * Math.log(LARGE) / (SMALL * Math.log(SMALL));
+        // quadratic would be 100
+        assertTrue("10x the lines took " + ratio + "x the time, expected about " + expected,
+                ratio < expected * 2.5);
+    }
+
+    public void testRemoveDuplicatesScalesLinearly() throws Exception {
+        // with a fixed number of distinct lines the set does not grow, so
+        // the time is linear in the number of lines
+        String[] small = generate(SMALL, 1000, 3);
+        String[] large = generate(LARGE, 1000, 4);
+        for (boolean matchCase : new boolean[]{false, true}) {
+            double ratio = (double) bestRemoveDuplicatesNanos(large, matchCase)
+                    / bestRemoveDuplicatesNanos(small, matchCase);
+            assertTrue("matchCase=" + matchCase + ": 10x the lines took " + ratio + "x the time",
+                    ratio < 10 * 2.5);
+        }
+    }
+
+    public void testAllocatedBytesPerLine() throws Exception {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            // nothing to measure with
+            return;
+        }
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        allocations.setThreadAllocatedMemoryEnabled(true);
+        String[] lines = generate(SMALL, SMALL / 2, 5);
+        // a sort makes about 17 compares per line, comparing two lines with
+        // the collator allocates more than 1KB, their collation keys are
+        // about 2KB per line. The limits are a quarter above the measured
+        // bytes, so an allocation of 100 bytes per compare fails
+        assertAllocated(allocations, lines, 2560, new Task() {
+            @Override
+            public void run(String[] lines) {
+                LineSorter.sort(lines, SORT);
+            }
+        }, "sort");
+        assertAllocated(allocations, lines, 2560, new Task() {
+            @Override
+            public void run(String[] lines) {
+                LineSorter.sort(lines, SORT_MATCH_CASE);
+            }
+        }, "sort matching case");
+        assertAllocated(allocations, lines, 32, new Task() {
+            @Override
+            public void run(String[] lines) {
+                LineSorter.removeDuplicates(lines, false);
+            }
+        }, "removeDuplicates");
+        // the permutation allocates about 1KB per line
+        assertAllocated(allocations, lines, 1280, new Task() {
+            @Override
+            public void run(String[] lines) {
+                LineSorter.permutation(lines, new SortOptions(false, false, true));
+            }
+        }, "permutation");
+        // the lines are compared and hashed on the bytes of the arena, only
+        // the tables of ints per line are allocated
+        final LineArena arena = toArena(lines);
+        assertAllocated(allocations, lines, 48, new Task() {
+            @Override
+            public void run(String[] lines) {
+                LineSorter.permutation(arena, new SortOptions(false, false, true));
+            }
+        }, "permutation of an arena");
+    }
+
+    private interface Task {
+
+        void run(String[] lines);
+    }
+
+    private static void assertAllocated(com.sun.management.ThreadMXBean allocations, String[] lines,
+            long maxBytesPerLine, Task task, String name) {
+        long thread = Thread.currentThread().getId();
+        // the first run loads and compiles the code
+        task.run(lines.clone());
+        String[] copy = lines.clone();
+        long before = allocations.getThreadAllocatedBytes(thread);
+        task.run(copy);
+        long bytesPerLine = (allocations.getThreadAllocatedBytes(thread) - before) / lines.length;
+        assertTrue(name + " allocated " + bytesPerLine + " bytes per line", bytesPerLine <= maxBytesPerLine);
+    }
+
+    private static long bestSortNanos(String[] lines, SortOptions options, int runs) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < runs; i++) {
+            String[] copy = lines.clone();
+            long start = System.nanoTime();
+            LineSorter.sort(copy, options);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static long bestRemoveDuplicatesNanos(String[] lines, boolean matchCase) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i <= 3; i++) {
+            long start = System.nanoTime();
+            LineSorter.removeDuplicates(lines, matchCase);
+            long nanos = System.nanoTime() - start;
+            if (i > 0) {
+                best = Math.min(best, nanos);
+            }
+        }
+        return best;
+    }
+
+    private static LineArena toArena(String[] lines) {
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            sb.append(line).append('\n');
+        }
+        char[] text = sb.toString().toCharArray();
+        LineArena arena = new LineArena.Builder(text.length, lines.length).append(text, 0, text.length).build();
+        assertTrue(arena.isLatin1());
+        return arena;
+    }
+
+    /**
+     * Lines of mixed case words and numbers, picked from
+     * <code>distinct</code> different lines.
+     */
+    private static String[] generate(int count, int distinct, long seed) {
+        Random random = new Random(seed);
+        String[] pool = new String[distinct];
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < distinct; i++) {
+            sb.setLength(0);
+            int words = 2 + random.nextInt(6);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) {
+                    sb.append(' ');
+                }
+                if (random.nextInt(4) == 0) {
+                    sb.append(random.nextInt(100000));
+                } else {
+                    int length = 2 + random.nextInt(8);
+                    for (int c = 0; c < length; c++) {
+                        char ch = (char) ('a' + random.nextInt(26));
+                        sb.append(random.nextInt(5) == 0 ? Character.toUpperCase(ch) : ch);
+                    }
+                }
+            }
+            pool[i] = sb.toString();
+        }
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = pool[i < distinct ? i : random.nextInt(distinct)];
+        }
+        // spread the pool over the lines
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            String swap = lines[i];
+            lines[i] = lines[j];
+            lines[j] = swap;
+        }
+        return lines;
+    }
+}
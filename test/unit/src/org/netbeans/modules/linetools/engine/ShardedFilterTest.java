@@ -0,0 +1,158 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2026 nb-sort-line-tools contributors
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.modules.linetools.engine;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import org.netbeans.junit.NbTestCase;
+
+/**
+ * Checks that the outputs of the shards are joined in order with the
+ * statistics of all shards, and that a failed shard cancels the others
+ * without reporting their interruption nor losing its statistics.
+ */
+public class ShardedFilterTest extends NbTestCase {
+
+    public ShardedFilterTest(String name) {
+        super(name);
+    }
+
+    public void testShardsInOrder() throws Exception {
+        String[] lines = new String[100];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = "line " + i;
+        }
+        FilterStatistics statistics = new FilterStatistics();
+        assertEquals(Arrays.asList(lines),
+                Arrays.asList(ShardedFilter.filter(new String[]{"cat"}, lines, 4, statistics)));
+        assertEquals(4, statistics.processes);
+    }
+
+    public void testStatistics() throws Exception {
+        FilterStatistics statistics = new FilterStatistics();
+        assertEquals(Arrays.asList("a", "bc"),
+                Arrays.asList(ShardedFilter.filter(new String[]{"cat"}, new String[]{"a", "bc"}, 2, statistics)));
+        assertEquals(2, statistics.processes);
+        assertEquals(2, statistics.linesWritten);
+        assertEquals(5, statistics.getBytesWritten());
+        assertEquals(2, statistics.getLinesRead());
+        assertEquals(5, statistics.getBytesRead());
+        assertTrue(statistics.getFirstOutputNanos() >= 0);
+
+        final List<LogRecord> records = new ArrayList<>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Logger log = Logger.getLogger(FilterStatistics.class.getName());
+        log.addHandler(handler);
+        try {
+            statistics.commit("cat");
+        } finally {
+            log.removeHandler(handler);
+        }
+        assertEquals(1, records.size());
+        assertEquals(Level.INFO, records.get(0).getLevel());
+        assertEquals("cat", records.get(0).getParameters()[0]);
+        assertSame(statistics, records.get(0).getParameters()[1]);
+    }
+
+    public void testFailedShardCancelsTheOthers() throws Exception {
+        final List<Throwable> notified = new ArrayList<>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                if (record.getThrown() != null) {
+                    synchronized (notified) {
+                        notified.add(record.getThrown());
+                    }
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Logger.getLogger("").addHandler(handler);
+        try {
+            // the first shard fails at once, the others would leave a file
+            // after a while
+            String[] command = {"sh", "-c", "read line; [ \"$line\" = fail ] && exit 1; sleep 2; touch \"$line\""};
+            File[] markers = new File[3];
+            String[] lines = new String[markers.length + 1];
+            lines[0] = "fail";
+            for (int i = 0; i < markers.length; i++) {
+                markers[i] = new File(getWorkDir(), "shard" + i);
+                lines[i + 1] = markers[i].getPath();
+            }
+            FilterStatistics statistics = new FilterStatistics();
+            assertNull(ShardedFilter.filter(command, lines, lines.length, statistics));
+            // the failed shard is counted all the same
+            assertTrue(statistics.toString(), statistics.processes >= 1);
+            assertFalse(Thread.currentThread().isInterrupted());
+            Thread.sleep(4000);
+            for (File marker : markers) {
+                assertFalse("the shard was not cancelled: " + marker, marker.exists());
+            }
+            synchronized (notified) {
+                assertEquals(notified.toString(), 0, notified.size());
+            }
+        } finally {
+            Logger.getLogger("").removeHandler(handler);
+        }
+    }
+}